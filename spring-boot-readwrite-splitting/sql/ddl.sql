@@ -1,12 +1,19 @@
 create database if not exists test;
 use test;
 
+-- 主键由应用生成（io.leego.example.id.SnowflakeIdGenerator），单库与分库相同
 create table user
 (
-    id           bigint primary key auto_increment not null,
-    username     varchar(20)                       not null,
-    password     varchar(40)                       not null,
-    created_time datetime                          not null,
-    updated_time datetime                          null,
+    id           bigint primary key not null,
+    username     varchar(20)        not null,
+    password     varchar(40)        not null,
+    created_time datetime           not null,
+    updated_time datetime           null,
     constraint uk_user_username unique (username)
 );
+
+create table heartbeat
+(
+    id int primary key not null,
+    ts bigint          not null
+);
@@ -0,0 +1,134 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.config.ReadWriteSplittingProperties;
+import io.leego.example.id.SnowflakeIdGenerator;
+import io.leego.example.pojo.dto.UserCreateDTO;
+import io.leego.example.repository.CoalescingUserRepository;
+import io.leego.example.repository.UserBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比逐条提交与合并提交（{@link CoalescingUserRepository}）创建用户的吞吐量与延迟。
+ * <p>
+ * 两种模式使用同一个事务管理器：逐条提交时每个用户一个事务，合并提交时 {@link UserBatchRepository} 经由与应用相同的
+ * <code>@Transactional</code> 代理，每批一个事务。每种模式依次以 1、8、32、128 个线程并发执行。默认使用内存数据库 H2，其提交不涉及磁盘同步，
+ * 度量提交开销时应通过 <code>-Dbenchmark.jdbc-url</code>、<code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code>
+ * 指向已执行 <code>sql/ddl.sql</code> 的 MySQL。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.CoalescingBenchmark</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class CoalescingBenchmark {
+    private static final int[] THREADS = {1, 8, 32, 128};
+    private static final String DDL = "create table if not exists user (id bigint primary key not null, username varchar(20) not null, "
+            + "password varchar(40) not null, created_time datetime not null, updated_time datetime null, "
+            + "constraint uk_user_username unique (username))";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values (?, ?, ?, ?)";
+
+    public enum Target {
+        DIRECT, COALESCED
+    }
+
+    @Param
+    private Target target;
+    private final AtomicLong sequence = new AtomicLong();
+    private String prefix;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CoalescingUserRepository coalescingUserRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:coalescing;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        config.setMaximumPoolSize(32);
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (url.startsWith("jdbc:h2:")) {
+            jdbcTemplate.execute(DDL);
+        }
+        // 用户名前缀区分每次运行，避免与已有数据冲突
+        prefix = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36).substring(0, 6);
+        ReadWriteSplittingProperties properties = new ReadWriteSplittingProperties();
+        properties.getCoalesce().setEnabled(target == Target.COALESCED);
+        properties.getCoalesce().setWindow(Duration.ofMillis(2));
+        properties.getCoalesce().setMaxSize(100);
+        properties.getCoalesce().setWriters(2);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ProxyFactory proxyFactory = new ProxyFactory(new UserBatchRepository(jdbcTemplate));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        UserBatchRepository userBatchRepository = (UserBatchRepository) proxyFactory.getProxy();
+        coalescingUserRepository = new CoalescingUserRepository(userBatchRepository, properties, new SimpleMeterRegistry());
+        coalescingUserRepository.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        coalescingUserRepository.destroy();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object createUser() {
+        String username = prefix + Long.toString(sequence.incrementAndGet(), 36);
+        if (target == Target.COALESCED) {
+            UserCreateDTO dto = new UserCreateDTO();
+            dto.setUsername(username);
+            dto.setPassword("password");
+            return coalescingUserRepository.create(dto);
+        }
+        return transactionTemplate.execute(status -> jdbcTemplate.update(INSERT_SQL,
+                SnowflakeIdGenerator.nextId(username), username, "password", new Timestamp(System.currentTimeMillis())));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(CoalescingBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.leego.example.benchmark;
+
+import io.leego.example.ReadWriteSplittingApplication;
+import io.leego.example.controller.ReadWriteSplittingController;
+import io.leego.example.pojo.dto.UserUpdateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读库降级场景的压力测试，观察路由、故障转移与连接池在故障下的表现。
+ * <p>
+ * 应用以内存数据库 H2 启动，<code>master</code> 与各读库指向同一个数据库以模拟无延迟的复制，
+ * 并使用 {@link FaultInjectingDataSource} 注入故障。读库数由 <code>-Dscenario.replicas</code> 指定，默认与配置文件一致只有
+ * <code>slave0</code>，此时 <code>slave0</code> 的故障只能通过回退至写库规避。依次执行以下阶段，每个阶段输出吞吐量、错误数、延迟分位数及各数据源的路由数：
+ * <ol>
+ * <li>无故障</li>
+ * <li><code>slave0</code> 每条语句延迟 200 毫秒</li>
+ * <li><code>slave0</code> 一半的语句失败</li>
+ * <li><code>slave0</code> 建立物理连接停顿 5 秒（空闲连接被逐出）</li>
+ * <li><code>master</code> 每条语句延迟 50 毫秒（锁等待）</li>
+ * </ol>
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.DegradedReplicaScenario</code>。
+ *
+ * @author Leego Yih
+ */
+public class DegradedReplicaScenario {
+    private static final String JDBC_URL = "jdbc:h2:mem:scenario;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int REPLICAS = Integer.getInteger("scenario.replicas", 1);
+    private static final List<String> DATA_SOURCES = dataSources();
+    private static final int USERS = 1000;
+    private static final int THREADS = Integer.getInteger("scenario.threads", 32);
+    private static final long PHASE_SECONDS = Long.getLong("scenario.phase-seconds", 15);
+
+    public static void main(String[] args) throws Exception {
+        initialize();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ReadWriteSplittingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties())
+                .run(args)) {
+            ReadWriteSplittingController controller = context.getBean(ReadWriteSplittingController.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            run("baseline", controller, meterRegistry, () -> {
+            });
+            run("slave0 latency 200ms", controller, meterRegistry, () -> Fault.of("slave0").latency(200));
+            run("slave0 error rate 50%", controller, meterRegistry, () -> Fault.of("slave0").errorRate(0.5));
+            run("slave0 stall 5s", controller, meterRegistry, () -> Fault.of("slave0").stall(5000));
+            run("master latency 50ms", controller, meterRegistry, () -> Fault.of("master").latency(50));
+        }
+    }
+
+    private static void run(String phase, ReadWriteSplittingController controller, MeterRegistry meterRegistry, Runnable fault) throws InterruptedException {
+        Fault.clearAll();
+        fault.run();
+        Map<String, Double> routesBefore = routes(meterRegistry);
+        Timer latency = Timer.builder("scenario").publishPercentiles(0.5, 0.99).register(new SimpleMeterRegistry());
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PHASE_SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long id = ThreadLocalRandom.current().nextInt(USERS) + 1;
+                    long start = System.nanoTime();
+                    try {
+                        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                            UserUpdateDTO dto = new UserUpdateDTO();
+                            dto.setId(id);
+                            dto.setPassword("password" + start);
+                            controller.updateUser(dto);
+                        } else {
+                            controller.getUser(id);
+                        }
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(PHASE_SECONDS + 60, TimeUnit.SECONDS);
+        Map<String, Double> routesAfter = routes(meterRegistry);
+        StringBuilder report = new StringBuilder(String.format("%n[%s]%n  ops/s: %.1f, errors: %d%n",
+                phase, latency.count() / (double) PHASE_SECONDS, errors.get()));
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            report.append(String.format("  p%.0f: %.1f ms%n", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        for (String name : DATA_SOURCES) {
+            report.append(String.format("  routed to %s: %.0f%n", name, routesAfter.getOrDefault(name, 0D) - routesBefore.getOrDefault(name, 0D)));
+        }
+        System.out.print(report);
+    }
+
+    private static Map<String, Double> routes(MeterRegistry meterRegistry) {
+        Map<String, Double> routes = new LinkedHashMap<>();
+        for (Counter counter : meterRegistry.find("datasource.routes").counters()) {
+            routes.merge(counter.getId().getTag("datasource"), counter.count(), Double::sum);
+        }
+        return routes;
+    }
+
+    private static Map<String, Object> properties() {
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("spring.shardingsphere.datasource.names", String.join(",", DATA_SOURCES));
+        for (String name : DATA_SOURCES) {
+            String prefix = "spring.shardingsphere.datasource." + name + ".";
+            props.put(prefix + "type", FaultInjectingDataSource.class.getName());
+            props.put(prefix + "driver-class-name", "org.h2.Driver");
+            props.put(prefix + "jdbc-url", JDBC_URL);
+            props.put(prefix + "username", "sa");
+            props.put(prefix + "password", "");
+            props.put(prefix + "pool-name", name);
+            props.put(prefix + "connection-timeout", 500);
+        }
+        props.put("spring.shardingsphere.rules.readwrite-splitting.data-sources.test.props.read-data-source-names",
+                String.join(",", DATA_SOURCES.subList(1, DATA_SOURCES.size())));
+        props.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        props.put("spring.jpa.hibernate.ddl-auto", "none");
+        props.put("readwrite-splitting.cache.enabled", false);
+        props.put("readwrite-splitting.health.interval", "500ms");
+        props.put("readwrite-splitting.health.timeout", "1s");
+        props.put("logging.level.io.leego", "info");
+        return props;
+    }
+
+    private static List<String> dataSources() {
+        List<String> names = new ArrayList<>();
+        names.add("master");
+        for (int i = 0; i < REPLICAS; i++) {
+            names.add("slave" + i);
+        }
+        return names;
+    }
+
+    private static void initialize() throws Exception {
+        // 连接在应用运行期间保持打开，H2 内存数据库不会被释放
+        Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        String ddl = new String(Files.readAllBytes(Paths.get("sql/ddl.sql")), StandardCharsets.UTF_8);
+        List<String> statements = new ArrayList<>();
+        for (String statement : ddl.split(";")) {
+            String sql = statement.trim();
+            if (sql.startsWith("create table")) {
+                statements.add(sql);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement ps = connection.prepareStatement("insert into user (id, username, password, created_time) values (?, ?, ?, ?)")) {
+            for (int i = 1; i <= USERS; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "user" + i);
+                ps.setString(3, "password" + i);
+                ps.setTimestamp(4, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
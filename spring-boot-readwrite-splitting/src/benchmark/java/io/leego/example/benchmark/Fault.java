@@ -0,0 +1,92 @@
+package io.leego.example.benchmark;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 注入到数据源的故障，可在运行时调整，按连接池名称（<code>pool-name</code>）注册。
+ * <ul>
+ * <li><code>latencyMillis</code>：每条语句增加的延迟，模拟慢查询或写库的锁等待</li>
+ * <li><code>errorRate</code>：语句失败的概率，模拟连接被重置</li>
+ * <li><code>stallMillis</code>：建立物理连接时的停顿，模拟数据源无响应，设置后连接池中的空闲连接会被逐出</li>
+ * </ul>
+ *
+ * @author Leego Yih
+ * @see FaultInjectingDataSource
+ */
+public class Fault {
+    private static final ConcurrentMap<String, Fault> FAULTS = new ConcurrentHashMap<>();
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private volatile long stallMillis;
+    private volatile boolean stallPending;
+
+    public static Fault of(String poolName) {
+        return FAULTS.computeIfAbsent(poolName, k -> new Fault());
+    }
+
+    public static void clearAll() {
+        for (Fault fault : FAULTS.values()) {
+            fault.clear();
+        }
+    }
+
+    public Fault latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    public Fault errorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    public Fault stall(long millis) {
+        this.stallMillis = millis;
+        this.stallPending = millis > 0;
+        return this;
+    }
+
+    public void clear() {
+        latencyMillis = 0;
+        errorRate = 0;
+        stallMillis = 0;
+        stallPending = false;
+    }
+
+    /** 返回自上次调用以来是否设置了停顿，连接池据此逐出空闲连接。 */
+    boolean takeStall() {
+        if (!stallPending) {
+            return false;
+        }
+        stallPending = false;
+        return true;
+    }
+
+    void beforeConnect() throws SQLException {
+        sleep(stallMillis);
+    }
+
+    void beforeExecute() throws SQLException {
+        sleep(latencyMillis);
+        double rate = errorRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            throw new SQLTransientConnectionException("Connection reset (injected)");
+        }
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted (injected)", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.util.DriverDataSource;
+import io.leego.example.routing.AdmissionHikariDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 注入故障的连接池，在 <code>spring.shardingsphere.datasource.*.type</code> 中替换 {@link AdmissionHikariDataSource}，
+ * 并通过 <code>pool-name</code> 指定数据源名称，故障由 {@link Fault#of(String)} 配置。
+ * <p>
+ * 建立物理连接时注入停顿，执行语句（<code>execute*</code>）时注入延迟与错误，连接池及准入控制的行为与生产环境一致。
+ * 物理连接由连接池的线程建立，停顿期间请求线程在 <code>connection-timeout</code> 内等待，并占用准入控制的名额；
+ * 设置停顿后连接池中的空闲连接会被逐出，之后的请求需要等待新的物理连接。
+ *
+ * @author Leego Yih
+ */
+public class FaultInjectingDataSource extends AdmissionHikariDataSource {
+    private volatile boolean initialized;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Fault fault = Fault.of(getPoolName());
+        if (!initialized) {
+            initialize(fault);
+        }
+        HikariPoolMXBean pool = getHikariPoolMXBean();
+        if (fault.takeStall() && pool != null) {
+            pool.softEvictConnections();
+        }
+        Connection connection = super.getConnection();
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                Statement statement = (Statement) result;
+                Class<?> type = method.getReturnType().isInterface() ? method.getReturnType() : Statement.class;
+                return proxy(type, statement, (p, m, a) -> {
+                    if (m.getName().startsWith("execute")) {
+                        fault.beforeExecute();
+                    }
+                    return invoke(statement, m, a);
+                });
+            }
+            return result;
+        });
+    }
+
+    /** 连接池启动前以注入停顿的数据源替换 Hikari 根据 <code>jdbc-url</code> 创建的 {@link DriverDataSource}。 */
+    private synchronized void initialize(Fault fault) {
+        if (initialized) {
+            return;
+        }
+        if (getDataSource() == null && getJdbcUrl() != null) {
+            DataSource dataSource = new DriverDataSource(getJdbcUrl(), getDriverClassName(), getDataSourceProperties(), getUsername(), getPassword());
+            setDataSource(proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    fault.beforeConnect();
+                }
+                return invoke(dataSource, method, args);
+            }));
+        }
+        initialized = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FaultInjectingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
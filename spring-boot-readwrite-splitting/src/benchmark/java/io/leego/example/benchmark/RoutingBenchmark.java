@@ -0,0 +1,210 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.shardingsphere.driver.api.ShardingSphereDataSourceFactory;
+import org.apache.shardingsphere.infra.config.algorithm.ShardingSphereAlgorithmConfiguration;
+import org.apache.shardingsphere.readwritesplitting.api.ReadwriteSplittingRuleConfiguration;
+import org.apache.shardingsphere.readwritesplitting.api.rule.ReadwriteSplittingDataSourceRuleConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 度量 ShardingSphere 解析、路由、归并流程为 <code>UserRepository</code> 的每次调用带来的额外开销。
+ * <p>
+ * 使用内存数据库 H2 作为写库与读库，分别以三种模式执行 <code>UserRepository</code> 生成的语句：
+ * <ul>
+ * <li><code>DIRECT</code>：直接访问 Hikari 连接池</li>
+ * <li><code>STATIC</code>：经由静态读写分离规则，语句以字面量拼接，并带有每次调用递增的字面量，
+ * 不会命中 SQL 解析缓存，每次都需要重新解析</li>
+ * <li><code>CACHED</code>：经由静态读写分离规则，语句使用参数占位符，命中 SQL 解析缓存</li>
+ * </ul>
+ * 运行 <code>mvn -Pbenchmark compile exec:exec</code>，输出吞吐量、延迟分位数及每次操作的内存分配
+ * （<code>gc.alloc.rate.norm</code>）。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class RoutingBenchmark {
+    private static final int USERS = 10000;
+    private static final String DDL = "create table user (id bigint primary key not null, username varchar(20) not null, "
+            + "password varchar(40) not null, created_time datetime not null, updated_time datetime null, "
+            + "constraint uk_user_username unique (username))";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values (?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "select id, username, password, created_time, updated_time from user where id = ?";
+    private static final String EXISTS_BY_USERNAME_SQL = "select id from user where username = ? limit 1";
+    private static final String UPDATE_PASSWORD_SQL = "update user set password = ?, updated_time = ? where id = ?";
+
+    public enum Target {
+        DIRECT, STATIC, CACHED
+    }
+
+    @Param
+    private Target target;
+    private final AtomicLong sequence = new AtomicLong();
+    private HikariDataSource master;
+    private HikariDataSource replica;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String suffix = target.name().toLowerCase();
+        master = createDataSource("master_" + suffix);
+        replica = createDataSource("replica_" + suffix);
+        initialize(master);
+        initialize(replica);
+        if (target == Target.DIRECT) {
+            dataSource = master;
+            return;
+        }
+        Map<String, DataSource> dataSourceMap = new LinkedHashMap<>();
+        dataSourceMap.put("master", master);
+        dataSourceMap.put("slave0", replica);
+        Properties props = new Properties();
+        props.setProperty("write-data-source-name", "master");
+        props.setProperty("read-data-source-names", "slave0");
+        ReadwriteSplittingRuleConfiguration ruleConfig = new ReadwriteSplittingRuleConfiguration(
+                Collections.singleton(new ReadwriteSplittingDataSourceRuleConfiguration("test", "Static", props, "round_robin")),
+                Collections.singletonMap("round_robin", new ShardingSphereAlgorithmConfiguration("ROUND_ROBIN", new Properties())));
+        dataSource = ShardingSphereDataSourceFactory.createDataSource("logic_db", dataSourceMap, Collections.singleton(ruleConfig), new Properties());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (dataSource instanceof AutoCloseable && dataSource != master) {
+            ((AutoCloseable) dataSource).close();
+        }
+        master.close();
+        replica.close();
+    }
+
+    @Benchmark
+    public Object findById() throws SQLException {
+        long id = randomId();
+        if (target == Target.STATIC) {
+            return query(unique(SELECT_BY_ID_SQL.replace("?", Long.toString(id))));
+        }
+        return query(SELECT_BY_ID_SQL, id);
+    }
+
+    @Benchmark
+    public Object existsByUsername() throws SQLException {
+        String username = "user" + randomId();
+        if (target == Target.STATIC) {
+            return query(unique(EXISTS_BY_USERNAME_SQL.replace("?", "'" + username + "'")));
+        }
+        return query(EXISTS_BY_USERNAME_SQL, username);
+    }
+
+    @Benchmark
+    public int updatePasswordById() throws SQLException {
+        long id = randomId();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection connection = dataSource.getConnection()) {
+            if (target == Target.STATIC) {
+                try (Statement statement = connection.createStatement()) {
+                    return statement.executeUpdate("update user set password = 'password" + id + "_" + sequence.incrementAndGet() + "', updated_time = '" + now + "' where id = " + id);
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_PASSWORD_SQL)) {
+                ps.setString(1, "password" + id);
+                ps.setTimestamp(2, now);
+                ps.setLong(3, id);
+                return ps.executeUpdate();
+            }
+        }
+    }
+
+    private Object query(String sql, Object... args) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getObject(1) : null;
+            }
+        }
+    }
+
+    /** 在查询列中加入递增的字面量，使每次调用的语句都不相同。 */
+    private String unique(String sql) {
+        return sql.replace(" from ", ", " + sequence.incrementAndGet() + " as seq from ");
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextInt(USERS) + 1;
+    }
+
+    private static HikariDataSource createDataSource(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(8);
+        return new HikariDataSource(config);
+    }
+
+    private static void initialize(DataSource dataSource) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(DDL);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 1; i <= USERS; i++) {
+                    ps.setLong(1, i);
+                    ps.setString(2, "user" + i);
+                    ps.setString(3, "password" + i);
+                    ps.setTimestamp(4, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoutingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,176 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.id.SnowflakeIdGenerator;
+import io.leego.example.sharding.GeneShardingAlgorithm;
+import org.apache.shardingsphere.driver.api.ShardingSphereDataSourceFactory;
+import org.apache.shardingsphere.infra.config.RuleConfiguration;
+import org.apache.shardingsphere.infra.config.algorithm.ShardingSphereAlgorithmConfiguration;
+import org.apache.shardingsphere.readwritesplitting.api.ReadwriteSplittingRuleConfiguration;
+import org.apache.shardingsphere.readwritesplitting.api.rule.ReadwriteSplittingDataSourceRuleConfiguration;
+import org.apache.shardingsphere.sharding.api.config.ShardingRuleConfiguration;
+import org.apache.shardingsphere.sharding.api.config.rule.ShardingTableRuleConfiguration;
+import org.apache.shardingsphere.sharding.api.config.strategy.sharding.ComplexShardingStrategyConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比单个写库（<code>SINGLE</code>）与按用户名分片至多个读写分离数据源（<code>SHARDED</code>）时创建用户的吞吐量。
+ * <p>
+ * 两种模式均经由 ShardingSphere，使用与 <code>application-sharding.properties</code> 相同的读写分离规则与
+ * {@link GeneShardingAlgorithm}，主键由 {@link SnowflakeIdGenerator} 按用户名嵌入分片基因。
+ * 默认每个写库为一个内存数据库 H2，其写入不涉及磁盘同步与锁竞争，度量写库瓶颈时应通过
+ * <code>-Dbenchmark.jdbc-urls</code>（以逗号分隔，<code>SINGLE</code> 只使用第一个）、<code>-Dbenchmark.username</code>、
+ * <code>-Dbenchmark.password</code> 指向多个已执行 <code>sql/ddl.sql</code> 的 MySQL 实例，分片数即连接串的个数。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.ShardingWriteBenchmark</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class ShardingWriteBenchmark {
+    private static final String DDL = "create table if not exists user (id bigint primary key not null, username varchar(20) not null, "
+            + "password varchar(40) not null, created_time datetime not null, updated_time datetime null, "
+            + "constraint uk_user_username unique (username))";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values (?, ?, ?, ?)";
+    private static final String DEFAULT_JDBC_URLS = "jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    public enum Target {
+        SINGLE, SHARDED
+    }
+
+    @Param
+    private Target target;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private String prefix;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        List<String> urls = Arrays.asList(System.getProperty("benchmark.jdbc-urls", DEFAULT_JDBC_URLS).split(","));
+        int shards = target == Target.SINGLE ? 1 : urls.size();
+        // 用户名加上每轮的前缀，重复运行时不违反唯一约束
+        prefix = Long.toString(System.currentTimeMillis() % 1000000, 36);
+        Map<String, DataSource> dataSourceMap = new LinkedHashMap<>();
+        Collection<ReadwriteSplittingDataSourceRuleConfiguration> groups = new ArrayList<>();
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            String url = urls.get(i).trim();
+            HikariDataSource master = createDataSource("master" + i, url);
+            initialize(master, url);
+            // 只写入不读取，读库与写库指向同一个库
+            dataSourceMap.put("master" + i, master);
+            dataSourceMap.put("slave" + i, createDataSource("slave" + i, url));
+            Properties props = new Properties();
+            props.setProperty("write-data-source-name", "master" + i);
+            props.setProperty("read-data-source-names", "slave" + i);
+            groups.add(new ReadwriteSplittingDataSourceRuleConfiguration("test" + i, "Static", props, "round_robin"));
+            nodes.add("test" + i + ".user");
+        }
+        Collection<RuleConfiguration> ruleConfigs = new ArrayList<>();
+        ruleConfigs.add(new ReadwriteSplittingRuleConfiguration(groups,
+                Collections.singletonMap("round_robin", new ShardingSphereAlgorithmConfiguration("ROUND_ROBIN", new Properties()))));
+        if (target == Target.SHARDED) {
+            Properties props = new Properties();
+            props.setProperty(GeneShardingAlgorithm.ID_COLUMN, "id");
+            props.setProperty(GeneShardingAlgorithm.SHARDING_KEY_COLUMN, "username");
+            ShardingTableRuleConfiguration tableRuleConfig = new ShardingTableRuleConfiguration("user", String.join(",", nodes));
+            tableRuleConfig.setDatabaseShardingStrategy(new ComplexShardingStrategyConfiguration("id,username", "user_gene"));
+            ShardingRuleConfiguration shardingRuleConfig = new ShardingRuleConfiguration();
+            shardingRuleConfig.getTables().add(tableRuleConfig);
+            shardingRuleConfig.getShardingAlgorithms().put("user_gene", new ShardingSphereAlgorithmConfiguration(GeneShardingAlgorithm.TYPE, props));
+            ruleConfigs.add(shardingRuleConfig);
+        }
+        dataSource = ShardingSphereDataSourceFactory.createDataSource("logic_db", dataSourceMap, ruleConfigs, new Properties());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (dataSource instanceof AutoCloseable) {
+            ((AutoCloseable) dataSource).close();
+        }
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    public int createUser() throws SQLException {
+        String username = prefix + "_" + Long.toString(sequence.incrementAndGet(), 36);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            ps.setLong(1, SnowflakeIdGenerator.nextId(username));
+            ps.setString(2, username);
+            ps.setString(3, "password");
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            return ps.executeUpdate();
+        }
+    }
+
+    private HikariDataSource createDataSource(String name, String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        config.setMaximumPoolSize(16);
+        HikariDataSource pool = new HikariDataSource(config);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static void initialize(DataSource dataSource, String url) throws SQLException {
+        if (!url.startsWith("jdbc:h2:")) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(DDL);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShardingWriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,150 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.entity.User;
+import io.leego.example.pojo.dto.UserCreateDTO;
+import io.leego.example.repository.UserBatchRepository;
+import io.leego.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比逐个创建用户（<code>SINGLE</code>，即 <code>POST users</code>）与批量创建用户（<code>BATCH</code>，即 <code>POST users/batch</code>）
+ * 每秒创建的用户数。
+ * <p>
+ * 每次调用创建 {@link #USERS} 个用户：<code>SINGLE</code> 每个用户一个事务，通过 <code>saveAndFlush</code> 写入；
+ * <code>BATCH</code> 在一个事务中调用 {@link UserBatchRepository#createAll(List)}。
+ * 默认使用内存数据库 H2，其写入不涉及网络往返与磁盘同步，度量往返开销时应通过 <code>-Dbenchmark.jdbc-url</code>、
+ * <code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code> 指向已执行 <code>sql/ddl.sql</code> 的 MySQL
+ * （连接串需包含 <code>rewriteBatchedStatements=true</code>）。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.UserCreateBenchmark</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class UserCreateBenchmark {
+    private static final int USERS = 500;
+    private static final String DDL = "create table if not exists user (id bigint primary key not null, username varchar(20) not null, "
+            + "password varchar(40) not null, created_time datetime not null, updated_time datetime null, "
+            + "constraint uk_user_username unique (username))";
+
+    public enum Target {
+        SINGLE, BATCH
+    }
+
+    @Param
+    private Target target;
+    private final AtomicLong sequence = new AtomicLong();
+    private String prefix;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private UserRepository userRepository;
+    private UserBatchRepository userBatchRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:create;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (url.startsWith("jdbc:h2:")) {
+            jdbcTemplate.execute(DDL);
+        }
+        // 用户名前缀区分每次运行，避免与已有数据冲突
+        prefix = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36).substring(0, 6);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.jdbc.batch_size", 50);
+        properties.put("hibernate.order_inserts", true);
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        // 两种方式都在 JpaTransactionManager 管理的事务中执行，与接口一致
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        userRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+        userBatchRepository = new UserBatchRepository(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public void createUsers() {
+        List<UserCreateDTO> dtos = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UserCreateDTO dto = new UserCreateDTO();
+            dto.setUsername(prefix + Long.toString(sequence.incrementAndGet(), 36));
+            dto.setPassword("password");
+            dtos.add(dto);
+        }
+        if (target == Target.BATCH) {
+            transactionTemplate.executeWithoutResult(status -> userBatchRepository.createAll(dtos));
+            return;
+        }
+        for (UserCreateDTO dto : dtos) {
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = new User(dto.getUsername(), dto.getPassword());
+                user.setCreatedTime(LocalDateTime.now());
+                userRepository.saveAndFlush(user);
+            });
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserCreateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
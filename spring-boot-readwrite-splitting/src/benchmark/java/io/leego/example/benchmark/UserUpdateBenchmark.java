@@ -0,0 +1,151 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.entity.User;
+import io.leego.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 <code>updateUser</code> 修改前后在并发更新下的延迟与吞吐量。
+ * <ul>
+ * <li><code>FIND_AND_SAVE</code>：修改前，通过 <code>findById</code> 加载实体，修改密码后 <code>save</code></li>
+ * <li><code>DIRECT_UPDATE</code>：修改后，通过 <code>updatePasswordById</code> 执行一条 <code>UPDATE</code></li>
+ * </ul>
+ * 每种模式依次以 1、16、64 个线程并发更新随机的用户，每次更新在一个事务中执行。默认使用内存数据库 H2，
+ * 度量往返与行锁开销时应通过 <code>-Dbenchmark.jdbc-url</code>、<code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code>
+ * 指向已执行 <code>sql/ddl.sql</code> 的 MySQL。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.UserUpdateBenchmark</code>，
+ * 延迟分位数见 <code>SampleTime</code> 模式的结果。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class UserUpdateBenchmark {
+    private static final int[] THREADS = {1, 16, 64};
+    private static final int USERS = 10000;
+    private static final String DDL = "create table if not exists user (id bigint primary key not null, username varchar(20) not null, "
+            + "password varchar(40) not null, created_time datetime not null, updated_time datetime null, "
+            + "constraint uk_user_username unique (username))";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values (?, ?, ?, ?)";
+
+    public enum Target {
+        FIND_AND_SAVE, DIRECT_UPDATE
+    }
+
+    @Param
+    private Target target;
+    private long firstId;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:update;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        config.setMaximumPoolSize(64);
+        dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (url.startsWith("jdbc:h2:")) {
+            jdbcTemplate.execute(DDL);
+        }
+        // 主键与用户名区分每次运行，避免与已有数据冲突
+        firstId = System.currentTimeMillis() * 100000;
+        String prefix = Long.toString(firstId, 36);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, firstId + i);
+                ps.setString(2, prefix.substring(prefix.length() - 8) + Integer.toString(i, 36));
+                ps.setString(3, "password");
+                ps.setTimestamp(4, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return USERS;
+            }
+        });
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        userRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object updateUser() {
+        long id = firstId + ThreadLocalRandom.current().nextInt(USERS);
+        String password = "password" + ThreadLocalRandom.current().nextInt();
+        if (target == Target.DIRECT_UPDATE) {
+            return transactionTemplate.execute(status -> userRepository.updatePasswordById(id, password, LocalDateTime.now()));
+        }
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("用户不存在"));
+            user.setPassword(password);
+            user.setUpdatedTime(LocalDateTime.now());
+            return userRepository.save(user);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(UserUpdateBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
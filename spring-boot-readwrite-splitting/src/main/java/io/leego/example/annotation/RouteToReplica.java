@@ -0,0 +1,25 @@
+package io.leego.example.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在只读事务中执行方法，并将事务中的所有查询路由至同一个读库。
+ * <p>
+ * ShardingSphere 默认将事务中的所有语句路由至写库，标注该注解的方法则在读库上开启只读事务，
+ * 事务中的查询均在同一个读库的同一个连接上执行，因此具有事务快照语义。
+ * 事务中执行写语句将抛出异常。
+ * <p>
+ * 若调用时已处于事务中，则沿用当前事务，不改变路由。
+ *
+ * @author Leego Yih
+ * @see io.leego.example.aspect.RouteToReplicaAspect
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RouteToReplica {
+}
@@ -0,0 +1,62 @@
+package io.leego.example.aspect;
+
+import io.leego.example.routing.ConsistencyContext;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 写事务提交后签发一致性令牌，并通过响应头返回给客户端。
+ * <p>
+ * 切面优先级高于事务切面，因此方法返回时最外层事务已提交；若仍处于外层事务中，则在外层事务提交后签发。
+ *
+ * @author Leego Yih
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConsistencyTokenAspect {
+
+    @Around("@annotation(transactional)")
+    public Object issueTokenAfterCommit(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (transactional.readOnly()) {
+            return result;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    issueToken();
+                }
+            });
+        } else {
+            issueToken();
+        }
+        return result;
+    }
+
+    private void issueToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            // 令牌由 ConsistencyTokenFilter 在请求结束时清除，同一请求中的后续读取也保证读到本次写入
+            long token = System.currentTimeMillis();
+            ConsistencyContext.set(token);
+            HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(ConsistencyContext.HEADER_NAME, String.valueOf(token));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.leego.example.aspect;
+
+import io.leego.example.routing.ReplicaPinContext;
+import org.apache.shardingsphere.transaction.TransactionHolder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * 为标注 {@link io.leego.example.annotation.RouteToReplica} 的方法开启绑定读库的只读事务。
+ * <p>
+ * 开启事务后清除 ShardingSphere 的事务标记，使查询重新经过负载均衡算法，并由 {@link ReplicaPinContext} 固定至同一个读库；
+ * 新建的读库连接会重放事务开启时的 <code>setAutoCommit(false)</code> 与 <code>setReadOnly(true)</code>，因此查询处于同一个只读事务中。
+ *
+ * @author Leego Yih
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RouteToReplicaAspect {
+    private final TransactionTemplate transactionTemplate;
+
+    public RouteToReplicaAspect(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Around("@annotation(io.leego.example.annotation.RouteToReplica) || @within(io.leego.example.annotation.RouteToReplica)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ReplicaPinContext.isActive() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        ReplicaPinContext.begin();
+        try {
+            return transactionTemplate.execute(status -> {
+                TransactionHolder.clear();
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        } finally {
+            ReplicaPinContext.end();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.leego.example.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 本地实体缓存，按容量及写入时间淘汰。
+ * <p>
+ * 写操作在事务提交后更新或移除缓存，并记录该实体在本节点有过写入。
+ * 缓存未命中时，若该实体在本节点有过写入，则通过 {@link HintManager#setWriteRouteOnly()} 从写库加载，
+ * 因此不会将读库上尚未复制的旧数据写入缓存。
+ * <p>
+ * 加载与提交后的更新均通过 {@link java.util.concurrent.ConcurrentMap#compute} 串行执行，
+ * 提交前开始的加载即使晚于提交完成，其结果也会被提交后的更新覆盖。
+ *
+ * @author Leego Yih
+ */
+public class EntityCache<K, V> {
+    private final boolean enabled;
+    private final Cache<K, V> values;
+    private final Cache<K, Boolean> written;
+
+    public EntityCache(String name, boolean enabled, long maximumSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.values = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.written = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, values, name);
+    }
+
+    /**
+     * Returns the cached value, loading it if absent.
+     * A <code>null</code> value returned by the loader is not cached.
+     *
+     * @param key    the key.
+     * @param loader the loader.
+     */
+    public V get(K key, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return values.get(key, k -> load(k, loader));
+    }
+
+    /**
+     * Puts the value after the current transaction commits.
+     * The value is supplied after commit, so that fields populated on flush (e.g. audit timestamps) are included.
+     *
+     * @param key   the key.
+     * @param value the supplier of the committed value.
+     */
+    public void putAfterCommit(K key, Supplier<V> value) {
+        afterCommit(() -> {
+            written.put(key, Boolean.TRUE);
+            V committed = value.get();
+            values.asMap().compute(key, (k, old) -> committed);
+        });
+    }
+
+    /**
+     * Removes the value after the current transaction commits.
+     *
+     * @param key the key.
+     */
+    public void evictAfterCommit(K key) {
+        afterCommit(() -> {
+            written.put(key, Boolean.TRUE);
+            values.asMap().compute(key, (k, old) -> null);
+        });
+    }
+
+    private V load(K key, Supplier<V> loader) {
+        // 已有 Hint 时不能嵌套，由其决定路由
+        if (written.getIfPresent(key) == null || HintManager.isInstantiated()) {
+            return loader.get();
+        }
+        try (HintManager hintManager = HintManager.getInstance()) {
+            hintManager.setWriteRouteOnly();
+            return loader.get();
+        }
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+}
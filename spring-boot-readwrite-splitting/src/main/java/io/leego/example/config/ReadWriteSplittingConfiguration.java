@@ -1,5 +1,10 @@
 package io.leego.example.config;
 
+import io.leego.example.cache.EntityCache;
+import io.leego.example.pojo.vo.UserVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -10,5 +15,13 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @Configuration
 @EnableJpaAuditing
 @EnableJpaRepositories(value = "io.leego.example.repository", enableDefaultTransactions = false)
+@EnableConfigurationProperties(ReadWriteSplittingProperties.class)
 public class ReadWriteSplittingConfiguration {
+
+    @Bean
+    public EntityCache<Long, UserVO> userCache(ReadWriteSplittingProperties properties, MeterRegistry meterRegistry) {
+        ReadWriteSplittingProperties.Cache cache = properties.getCache();
+        return new EntityCache<>("users", cache.isEnabled(), cache.getMaximumSize(), cache.getTtl(), meterRegistry);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package io.leego.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Leego Yih
+ */
+@Data
+@ConfigurationProperties("readwrite-splitting")
+public class ReadWriteSplittingProperties {
+    private Heartbeat heartbeat = new Heartbeat();
+    private Latency latency = new Latency();
+    private Hedge hedge = new Hedge();
+    private Cache cache = new Cache();
+    private Batch batch = new Batch();
+    private Coalesce coalesce = new Coalesce();
+    private Health health = new Health();
+    private Registry registry = new Registry();
+    private Admission admission = new Admission();
+
+    @Data
+    public static class Heartbeat {
+        /** 是否启用复制延迟心跳 */
+        private boolean enabled = true;
+        /** 心跳间隔 */
+        private Duration interval = Duration.ofSeconds(1);
+        /** 心跳表名 */
+        private String table = "heartbeat";
+    }
+
+    @Data
+    public static class Latency {
+        /** 查询延迟移动平均值的衰减时间常数 */
+        private Duration decay = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Hedge {
+        /** 是否启用对冲读取 */
+        private boolean enabled = false;
+        /** 对冲延迟取最近查询延迟的分位数 */
+        private double percentile = 0.95;
+        /** 计算分位数的样本数 */
+        private int windowSize = 1024;
+        /** 最小对冲延迟 */
+        private Duration minDelay = Duration.ofMillis(5);
+        /** 最大对冲延迟，样本不足时使用该值 */
+        private Duration maxDelay = Duration.ofMillis(100);
+        /** 参与对冲读取的读库的最大复制延迟 */
+        private Duration maxLag = Duration.ofSeconds(1);
+        /** 对冲读取线程数 */
+        private int poolSize = 16;
+    }
+
+    @Data
+    public static class Cache {
+        /** 是否启用用户缓存 */
+        private boolean enabled = true;
+        /** 最大缓存数量 */
+        private long maximumSize = 10000;
+        /** 写入后的过期时间 */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Batch {
+        /** 批量创建时每个事务写入的用户数，必须大于 0 */
+        private int chunkSize = 500;
+
+        public void setChunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("Chunk size must be greater than 0");
+            }
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    @Data
+    public static class Coalesce {
+        /** 是否合并并发创建的用户，以一条多行 INSERT 在一个事务中写入 */
+        private boolean enabled = false;
+        /** 收集同一批用户的最长时间 */
+        private Duration window = Duration.ofMillis(2);
+        /** 每批最多合并的用户数 */
+        private int maxSize = 100;
+        /** 等待写入的最大用户数，超过后拒绝创建 */
+        private int queueCapacity = 10000;
+        /** 并发执行的批次数 */
+        private int writers = 1;
+        /** 调用方等待写入结果的超时时间 */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Health {
+        /** 是否启用读库健康检查 */
+        private boolean enabled = true;
+        /** 探测语句 */
+        private String query = "select 1";
+        /** 探测间隔 */
+        private Duration interval = Duration.ofSeconds(2);
+        /** 探测超时时间 */
+        private Duration timeout = Duration.ofSeconds(1);
+        /** 连续失败多少次后熔断 */
+        private int failureThreshold = 3;
+        /** 半开状态下连续成功多少次后恢复 */
+        private int successThreshold = 2;
+        /** 熔断后多久进入半开状态 */
+        private Duration openDuration = Duration.ofSeconds(10);
+        /** 探测线程数 */
+        private int poolSize = 2;
+    }
+
+    @Data
+    public static class Registry {
+        /** 注册读库时预热的连接数 */
+        private int warmupConnections = 2;
+        /** 预热时校验连接的超时时间 */
+        private Duration warmupTimeout = Duration.ofSeconds(5);
+        /** 下线读库时等待进行中查询完成的最长时间 */
+        private Duration drainTimeout = Duration.ofSeconds(30);
+        /** 允许注册的读库主机（<code>host</code> 或 <code>host:port</code>），为空时只允许已配置的数据源所在的主机 */
+        private List<String> allowedHosts = new ArrayList<>();
+    }
+
+    @Data
+    public static class Admission {
+        /** 每个读库同时等待获取连接的最大线程数，小于等于 0 表示不限制 */
+        private int readMaxWaiting = 16;
+        /** 每个写库同时等待获取连接的最大线程数，小于等于 0 表示不限制 */
+        private int writeMaxWaiting = 64;
+    }
+}
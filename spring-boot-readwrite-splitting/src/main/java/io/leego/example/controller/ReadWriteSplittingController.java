@@ -1,10 +1,18 @@
 package io.leego.example.controller;
 
+import io.leego.example.cache.EntityCache;
+import io.leego.example.config.ReadWriteSplittingProperties;
 import io.leego.example.entity.User;
 import io.leego.example.pojo.dto.UserCreateDTO;
 import io.leego.example.pojo.dto.UserUpdateDTO;
+import io.leego.example.pojo.vo.UserCreateResultVO;
 import io.leego.example.pojo.vo.UserVO;
+import io.leego.example.repository.CoalescingUserRepository;
+import io.leego.example.repository.HedgedUserRepository;
+import io.leego.example.repository.UserBatchRepository;
 import io.leego.example.repository.UserRepository;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,52 +23,108 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Leego Yih
  */
 @RestController
 public class ReadWriteSplittingController {
     private final UserRepository userRepository;
+    private final HedgedUserRepository hedgedUserRepository;
+    private final UserBatchRepository userBatchRepository;
+    private final CoalescingUserRepository coalescingUserRepository;
+    private final EntityCache<Long, UserVO> userCache;
+    private final ReadWriteSplittingProperties properties;
 
-    public ReadWriteSplittingController(UserRepository userRepository) {
+    public ReadWriteSplittingController(UserRepository userRepository, HedgedUserRepository hedgedUserRepository, UserBatchRepository userBatchRepository,
+                                        CoalescingUserRepository coalescingUserRepository, EntityCache<Long, UserVO> userCache,
+                                        ReadWriteSplittingProperties properties) {
         this.userRepository = userRepository;
+        this.hedgedUserRepository = hedgedUserRepository;
+        this.userBatchRepository = userBatchRepository;
+        this.coalescingUserRepository = coalescingUserRepository;
+        this.userCache = userCache;
+        this.properties = properties;
     }
 
     @GetMapping("users/{id}")
     public UserVO getUser(@PathVariable Long id) {
-        return userRepository.findById(id).map(this::toVO).orElse(null);
+        return userCache.get(id, () -> loadUser(id));
+    }
+
+    private UserVO loadUser(Long id) {
+        if (hedgedUserRepository.isEnabled()) {
+            return hedgedUserRepository.findVOById(id).orElse(null);
+        }
+        return userRepository.findVOById(id).orElse(null);
     }
 
     @Transactional
     @PostMapping("users")
     public UserVO createUser(@Validated @RequestBody UserCreateDTO dto) {
-        if (userRepository.existsByUsername(dto.getUsername())) {
-            throw new RuntimeException("用户已存在");
+        if (coalescingUserRepository.isEnabled()) {
+            // 由写入线程在独立的事务中合并写入，返回时已提交，当前事务中没有语句，不会占用物理连接
+            User user = coalescingUserRepository.create(dto);
+            userCache.putAfterCommit(user.getId(), () -> toVO(user));
+            return toVO(user);
         }
         User user = new User(dto.getUsername(), dto.getPassword());
-        userRepository.save(user);
+        try {
+            // 主键由应用生成，INSERT 会延迟至提交时执行，因此需立即刷新以捕获唯一约束冲突
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateUsername(e)) {
+                throw new RuntimeException("用户已存在");
+            }
+            throw e;
+        }
+        userCache.putAfterCommit(user.getId(), () -> toVO(user));
         return toVO(user);
     }
 
+    /**
+     * 批量创建用户，每批用户在独立的事务中写入，返回每个用户的创建结果。
+     */
+    @PostMapping("users/batch")
+    public List<UserCreateResultVO> createUsers(@Validated @RequestBody List<UserCreateDTO> dtos) {
+        int chunkSize = properties.getBatch().getChunkSize();
+        List<UserCreateResultVO> results = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i += chunkSize) {
+            results.addAll(userBatchRepository.createAll(dtos.subList(i, Math.min(i + chunkSize, dtos.size()))));
+        }
+        return results;
+    }
+
     @Transactional
     @PutMapping("users")
     public UserVO updateUser(@Validated @RequestBody UserUpdateDTO dto) {
-        User user = userRepository.findById(dto.getId()).orElse(null);
-        if (user == null) {
+        int updated = userRepository.updatePasswordById(dto.getId(), dto.getPassword(), LocalDateTime.now());
+        if (updated == 0) {
             throw new RuntimeException("用户不存在");
         }
-        user.setPassword(dto.getPassword());
-        userRepository.save(user);
-        return toVO(user);
+        // 事务中的查询路由至写库，读到本次修改后的数据
+        UserVO vo = userRepository.findVOById(dto.getId()).orElseThrow(() -> new RuntimeException("用户不存在"));
+        userCache.putAfterCommit(vo.getId(), () -> vo);
+        return vo;
     }
 
     @Transactional
     @DeleteMapping("users/{id}")
     public int deleteUser(@PathVariable Long id) {
         userRepository.deleteById(id);
+        userCache.evictAfterCommit(id);
         return 1;
     }
 
+    /** 依赖唯一索引<code>uk_user_username</code>判断用户名是否重复，无需在写入前查询。 */
+    private boolean isDuplicateUsername(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains("uk_user_username");
+    }
+
     private UserVO toVO(User user) {
         return new UserVO(
                 user.getId(),
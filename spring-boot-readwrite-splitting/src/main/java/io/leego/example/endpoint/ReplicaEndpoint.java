@@ -0,0 +1,64 @@
+package io.leego.example.endpoint;
+
+import io.leego.example.routing.ReplicaRegistry;
+import io.leego.example.routing.ReplicaState;
+import io.leego.example.routing.ReplicaStates;
+import io.leego.example.routing.RoutingDataSources;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读库管理端点 <code>/actuator/replicas</code>。
+ * <ul>
+ * <li><code>GET /actuator/replicas</code>：查看读库状态</li>
+ * <li><code>POST /actuator/replicas/{name}</code>：注册读库</li>
+ * <li><code>DELETE /actuator/replicas/{name}</code>：下线读库</li>
+ * </ul>
+ * 该端点可以修改数据源，默认不通过 HTTP 暴露，开启时应使用独立的管理端口（<code>management.server.port</code>）并配置访问控制。
+ *
+ * @author Leego Yih
+ */
+@Component
+@Endpoint(id = "replicas")
+public class ReplicaEndpoint {
+    private final ReplicaRegistry replicaRegistry;
+    private final RoutingDataSources routingDataSources;
+
+    public ReplicaEndpoint(ReplicaRegistry replicaRegistry, RoutingDataSources routingDataSources) {
+        this.replicaRegistry = replicaRegistry;
+        this.routingDataSources = routingDataSources;
+    }
+
+    @ReadOperation
+    public Map<String, Object> replicas() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String readDataSourceName : routingDataSources.getReadDataSourceNames()) {
+            ReplicaState state = ReplicaStates.get(readDataSourceName);
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("circuit", state.getCircuitBreaker().getState());
+            details.put("lag", state.getLagMillis());
+            details.put("latency", state.getLatencyMillis());
+            details.put("inFlight", state.getInFlight());
+            result.put(readDataSourceName, details);
+        }
+        return result;
+    }
+
+    @WriteOperation
+    public void register(@Selector String name, String jdbcUrl, String username, String password, String group) throws SQLException {
+        replicaRegistry.register(group, name, jdbcUrl, username, password);
+    }
+
+    @DeleteOperation
+    public void drain(@Selector String name) throws InterruptedException {
+        replicaRegistry.drain(name);
+    }
+}
@@ -1,5 +1,6 @@
 package io.leego.example.entity;
 
+import io.leego.example.sharding.Shardable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -20,8 +21,13 @@ import javax.persistence.Table;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "user")
-public class User extends BaseEntity<Long> {
+public class User extends BaseEntity<Long> implements Shardable {
     @Column(nullable = false, updatable = false)
     private String username;
     private String password;
+
+    @Override
+    public String getShardingKey() {
+        return username;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package io.leego.example.filter;
+
+import io.leego.example.routing.ConsistencyContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 读取请求头中的一致性令牌，并绑定至当前线程。
+ * <p>
+ * 令牌由客户端提交，晚于当前时间的令牌按当前时间处理，避免伪造的未来令牌使读请求长期路由至写库。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String token = request.getHeader(ConsistencyContext.HEADER_NAME);
+        if (StringUtils.hasText(token)) {
+            try {
+                ConsistencyContext.set(Math.min(Long.parseLong(token.trim()), System.currentTimeMillis()));
+            } catch (NumberFormatException ignored) {
+                // 忽略无效令牌
+            }
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConsistencyContext.clear();
+        }
+    }
+}
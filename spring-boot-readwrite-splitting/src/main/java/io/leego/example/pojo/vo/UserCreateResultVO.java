@@ -0,0 +1,30 @@
+package io.leego.example.pojo.vo;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Leego Yih
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCreateResultVO {
+    private String username;
+    /** 主键超出 JavaScript 能精确表示的整数范围（2<sup>53</sup>），以字符串输出 */
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+    private boolean success;
+    private String message;
+
+    public static UserCreateResultVO success(String username, Long id) {
+        return new UserCreateResultVO(username, id, true, null);
+    }
+
+    public static UserCreateResultVO failure(String username, String message) {
+        return new UserCreateResultVO(username, null, false, message);
+    }
+}
@@ -1,5 +1,7 @@
 package io.leego.example.pojo.vo;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +15,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserVO {
+    /** 主键超出 JavaScript 能精确表示的整数范围（2<sup>53</sup>），以字符串输出 */
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String username;
     private String password;
@@ -0,0 +1,209 @@
+package io.leego.example.repository;
+
+import io.leego.example.config.ReadWriteSplittingProperties;
+import io.leego.example.entity.User;
+import io.leego.example.pojo.dto.UserCreateDTO;
+import io.leego.example.pojo.vo.UserCreateResultVO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并并发创建的用户（Group Commit）。
+ * <p>
+ * 调用方将用户放入队列后等待结果，写入线程收集 <code>readwrite-splitting.coalesce.window</code> 内
+ * （最多 <code>max-size</code> 个）的用户，通过 {@link UserBatchRepository} 以一条多行 <code>INSERT</code> 在一个事务中写入，
+ * 使多个请求共享一次提交。每个调用方得到各自的主键或“用户已存在”的错误；整批写入失败时逐个重新写入，
+ * 每个调用方得到各自的结果。
+ * <p>
+ * 等待超时不会撤销已入队的用户，该用户仍可能在稍后写入。
+ *
+ * @author Leego Yih
+ */
+@Repository
+public class CoalescingUserRepository implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingUserRepository.class);
+    private final UserBatchRepository userBatchRepository;
+    private final ReadWriteSplittingProperties.Coalesce properties;
+    private final BlockingQueue<Request> queue;
+    private final DistributionSummary batchSize;
+    private final Timer waitTimer;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public CoalescingUserRepository(UserBatchRepository userBatchRepository, ReadWriteSplittingProperties properties, MeterRegistry meterRegistry) {
+        this.userBatchRepository = userBatchRepository;
+        this.properties = properties.getCoalesce();
+        this.queue = new LinkedBlockingQueue<>(this.properties.getQueueCapacity());
+        this.batchSize = DistributionSummary.builder("coalesce.batch.size").register(meterRegistry);
+        this.waitTimer = Timer.builder("coalesce.wait").publishPercentileHistogram().register(meterRegistry);
+        Gauge.builder("coalesce.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getWriters(), r -> {
+            Thread thread = new Thread(r, "coalescing-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < properties.getWriters(); i++) {
+            executor.execute(this::write);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        List<Request> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Request request : remaining) {
+            request.future.completeExceptionally(new IllegalStateException("Coalescing writer is shut down"));
+        }
+    }
+
+    /**
+     * Creates a user together with other concurrent callers and waits for the outcome.
+     *
+     * @param dto the user to create.
+     * @return the created user.
+     * @throws RuntimeException if the username already exists, or the user cannot be written in time.
+     */
+    public User create(UserCreateDTO dto) {
+        Request request = new Request(dto);
+        if (!running || !queue.offer(request)) {
+            throw new RuntimeException("系统繁忙，请稍后重试");
+        }
+        long start = System.nanoTime();
+        try {
+            return request.future.get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("创建用户被中断", e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("创建用户超时", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void write() {
+        int maxSize = properties.getMaxSize();
+        long windowNanos = properties.getWindow().toNanos();
+        List<Request> batch = new ArrayList<>(maxSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxSize) {
+                    // 先取走已在队列中的用户，再等待窗口内到达的用户
+                    if (queue.drainTo(batch, maxSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Request request = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (request == null) {
+                        break;
+                    }
+                    batch.add(request);
+                }
+                batchSize.record(batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new IllegalStateException("Coalescing writer is shut down"));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Request> batch) {
+        List<UserCreateDTO> dtos = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            dtos.add(request.dto);
+        }
+        LocalDateTime createdTime = LocalDateTime.now();
+        List<UserCreateResultVO> results;
+        try {
+            results = userBatchRepository.createAll(dtos, createdTime);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch, e);
+                return;
+            }
+            // 失败可能只由个别用户引起，逐个重新写入，使每个调用方得到各自的结果
+            logger.warn("Failed to write {} coalesced users, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Request request : batch) {
+                flush(Collections.singletonList(request));
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            UserCreateResultVO result = results.get(i);
+            if (result.isSuccess()) {
+                User user = new User(request.dto.getUsername(), request.dto.getPassword());
+                user.setId(result.getId());
+                user.setCreatedTime(createdTime);
+                user.makeUpdatable();
+                request.future.complete(user);
+            } else {
+                request.future.completeExceptionally(new RuntimeException(result.getMessage()));
+            }
+        }
+    }
+
+    private void fail(List<Request> batch, Exception e) {
+        for (Request request : batch) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private static class Request {
+        private final UserCreateDTO dto;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+
+        Request(UserCreateDTO dto) {
+            this.dto = dto;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.leego.example.repository;
+
+import io.leego.example.pojo.vo.UserVO;
+import io.leego.example.routing.HedgedReadExecutor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 通过对冲读取按主键查询用户。
+ *
+ * @author Leego Yih
+ */
+@Repository
+public class HedgedUserRepository {
+    private static final String SELECT_BY_ID = "select id, username, password, created_time, updated_time from user where id = ?";
+    private final HedgedReadExecutor hedgedReadExecutor;
+
+    public HedgedUserRepository(HedgedReadExecutor hedgedReadExecutor) {
+        this.hedgedReadExecutor = hedgedReadExecutor;
+    }
+
+    public boolean isEnabled() {
+        return hedgedReadExecutor.isEnabled();
+    }
+
+    public Optional<UserVO> findVOById(Long id) {
+        return hedgedReadExecutor.query(SELECT_BY_ID, rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserVO(
+                    rs.getLong("id"),
+                    rs.getString("username"),
+                    rs.getString("password"),
+                    toLocalDateTime(rs.getTimestamp("created_time")),
+                    toLocalDateTime(rs.getTimestamp("updated_time"))));
+        }, id);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
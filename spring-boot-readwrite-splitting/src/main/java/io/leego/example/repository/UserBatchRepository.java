@@ -0,0 +1,170 @@
+package io.leego.example.repository;
+
+import io.leego.example.id.SnowflakeIdGenerator;
+import io.leego.example.pojo.dto.UserCreateDTO;
+import io.leego.example.pojo.vo.UserCreateResultVO;
+import io.leego.example.sharding.ShardingGenes;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量创建用户。
+ * <p>
+ * 每批用户在一个事务中处理：先用一条 <code>IN</code> 查询检查用户名是否已存在，再用一条多行 <code>INSERT</code> 写入。
+ * 事务中的语句均路由至写库，因此检查不受复制延迟影响。
+ * 主键由 {@link SnowflakeIdGenerator} 生成并嵌入用户名的分片基因，分库时多行 <code>INSERT</code> 会按用户名拆分至各分片。
+ * 用户名按数据库的排序规则比较（不区分大小写与重音，见 {@link ShardingGenes#normalize(String)}），
+ * 例如同一批中的 <code>Leego</code> 与 <code>leego</code> 只会创建第一个。
+ * 多行 <code>INSERT</code> 违反约束时逐条写入，个别用户的数据不合法不影响同一批的其他用户。
+ *
+ * @author Leego Yih
+ */
+@Repository
+public class UserBatchRepository {
+    private static final String EXISTS_SQL = "select username from user where username in (:usernames)";
+    private static final String EXISTS_BY_ID_SQL = "select count(*) from user where id = ?";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values ";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?)";
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public UserBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Creates a batch of users in one transaction and returns the outcome of each item, in order.
+     *
+     * @param dtos the users to create.
+     */
+    @Transactional
+    public List<UserCreateResultVO> createAll(List<UserCreateDTO> dtos) {
+        return createAll(dtos, LocalDateTime.now());
+    }
+
+    /**
+     * Creates a batch of users in one transaction and returns the outcome of each item, in order.
+     *
+     * @param dtos        the users to create.
+     * @param createdTime the created time of the users.
+     */
+    @Transactional
+    public List<UserCreateResultVO> createAll(List<UserCreateDTO> dtos, LocalDateTime createdTime) {
+        UserCreateResultVO[] results = new UserCreateResultVO[dtos.size()];
+        Set<String> existing = findExistingUsernames(dtos);
+        Set<String> seen = new HashSet<>();
+        List<Integer> indexes = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            String username = dtos.get(i).getUsername();
+            String key = username == null ? null : ShardingGenes.normalize(username);
+            if (username == null || dtos.get(i).getPassword() == null) {
+                results[i] = UserCreateResultVO.failure(username, "用户名或密码不能为空");
+            } else if (existing.contains(key) || !seen.add(key)) {
+                results[i] = UserCreateResultVO.failure(username, "用户已存在");
+            } else {
+                indexes.add(i);
+            }
+        }
+        if (!indexes.isEmpty()) {
+            insert(dtos, indexes, results, Timestamp.valueOf(createdTime));
+        }
+        return Arrays.asList(results);
+    }
+
+    private Set<String> findExistingUsernames(List<UserCreateDTO> dtos) {
+        Set<String> usernames = new HashSet<>();
+        for (UserCreateDTO dto : dtos) {
+            if (dto.getUsername() != null) {
+                usernames.add(dto.getUsername());
+            }
+        }
+        if (usernames.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> existing = new HashSet<>();
+        for (String username : namedParameterJdbcTemplate.queryForList(EXISTS_SQL, new MapSqlParameterSource("usernames", usernames), String.class)) {
+            existing.add(ShardingGenes.normalize(username));
+        }
+        return existing;
+    }
+
+    private void insert(List<UserCreateDTO> dtos, List<Integer> indexes, UserCreateResultVO[] results, Timestamp now) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + indexes.size() * (INSERT_VALUES.length() + 2)).append(INSERT_SQL);
+        for (int i = 0; i < indexes.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(INSERT_VALUES);
+        }
+        long[] ids = new long[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            ids[i] = SnowflakeIdGenerator.nextId(dtos.get(indexes.get(i)).getUsername());
+        }
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString());
+                int parameterIndex = 1;
+                for (int i = 0; i < indexes.size(); i++) {
+                    UserCreateDTO dto = dtos.get(indexes.get(i));
+                    ps.setLong(parameterIndex++, ids[i]);
+                    ps.setString(parameterIndex++, dto.getUsername());
+                    ps.setString(parameterIndex++, dto.getPassword());
+                    ps.setTimestamp(parameterIndex++, now);
+                }
+                return ps;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 并发创建了相同用户名或个别用户的数据不合法（如超出列长度），逐条写入以确定每个用户的结果
+            insertOneByOne(dtos, indexes, ids, results, now);
+            return;
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            results[index] = UserCreateResultVO.success(dtos.get(index).getUsername(), ids[i]);
+        }
+    }
+
+    private void insertOneByOne(List<UserCreateDTO> dtos, List<Integer> indexes, long[] ids, UserCreateResultVO[] results, Timestamp now) {
+        String sql = INSERT_SQL + INSERT_VALUES;
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            UserCreateDTO dto = dtos.get(index);
+            try {
+                jdbcTemplate.update(sql, ids[i], dto.getUsername(), dto.getPassword(), now);
+                results[index] = UserCreateResultVO.success(dto.getUsername(), ids[i]);
+            } catch (DataIntegrityViolationException e) {
+                // 分库时多行 INSERT 可能已在部分分片写入成功，主键已存在即说明该用户已由本批次创建
+                if (existsById(ids[i])) {
+                    results[index] = UserCreateResultVO.success(dto.getUsername(), ids[i]);
+                } else if (isDuplicateUsername(e)) {
+                    results[index] = UserCreateResultVO.failure(dto.getUsername(), "用户已存在");
+                } else {
+                    results[index] = UserCreateResultVO.failure(dto.getUsername(), "用户数据不合法");
+                }
+            }
+        }
+    }
+
+    private boolean isDuplicateUsername(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains("uk_user_username");
+    }
+
+    private boolean existsById(long id) {
+        Integer count = jdbcTemplate.queryForObject(EXISTS_BY_ID_SQL, Integer.class, id);
+        return count != null && count > 0;
+    }
+}
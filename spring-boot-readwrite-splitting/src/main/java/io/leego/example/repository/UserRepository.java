@@ -1,7 +1,14 @@
 package io.leego.example.repository;
 
 import io.leego.example.entity.User;
+import io.leego.example.pojo.vo.UserVO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 /**
  * @author Leego Yih
@@ -10,4 +17,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsername(String username);
 
+    /**
+     * 直接将列映射为 {@link UserVO}，不加载实体，也不注册至持久化上下文。
+     */
+    @Query("select new io.leego.example.pojo.vo.UserVO(u.id, u.username, u.password, u.createdTime, u.updatedTime) from User u where u.id = :id")
+    Optional<UserVO> findVOById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User set password = :password, updatedTime = :updatedTime where id = :id")
+    int updatePasswordById(@Param("id") Long id, @Param("password") String password, @Param("updatedTime") LocalDateTime updatedTime);
+
 }
@@ -0,0 +1,114 @@
+package io.leego.example.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.shardingsphere.infra.config.algorithm.ShardingSphereAlgorithmPostProcessor;
+import org.apache.shardingsphere.readwritesplitting.spi.ReplicaLoadBalanceAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 读库负载均衡算法基类。
+ * <p>
+ * 先根据 {@link ReplicaState} 过滤出可用的读库，再由子类从中选择一个，若没有可用的读库则路由至写库。
+ * 可用的读库需同时满足：
+ * <ul>
+ * <li>健康检查通过，即熔断器处于关闭状态（见 {@link ReplicaHealthChecker}）</li>
+ * <li>复制延迟不超过 <code>max-lag-millis</code>（未配置则不限制）</li>
+ * <li>已追上当前请求的一致性令牌（见 {@link ConsistencyContext}）</li>
+ * </ul>
+ * 可用的读库均已饱和（等待连接的线程数达到上限，见 {@link Admission}）时，按 <code>saturated-fallback</code> 处理：
+ * <code>FAIL</code>（默认）立即失败，<code>WRITE</code> 在写库未饱和时路由至写库。默认不回退至写库，以免读取的积压影响写入。
+ * 若当前线程绑定了读库（见 {@link ReplicaPinContext}），则第一次选择的结果将用于之后的所有查询。
+ * <p>
+ * 只有一个读库时 ShardingSphere 不调用负载均衡算法，由 {@link ReplicaAwareReadwriteSplittingSQLRouter} 调用。
+ *
+ * @author Leego Yih
+ */
+@Getter
+@Setter
+public abstract class AbstractReplicaReadQueryLoadBalanceAlgorithm implements ReplicaLoadBalanceAlgorithm, ShardingSphereAlgorithmPostProcessor {
+    protected static final String MAX_LAG_MILLIS_KEY = "max-lag-millis";
+    protected static final String SATURATED_FALLBACK_KEY = "saturated-fallback";
+    protected static final long UNLIMITED = -1L;
+    private Properties props = new Properties();
+    private long maxLagMillis = UNLIMITED;
+    private SaturatedFallback saturatedFallback = SaturatedFallback.FAIL;
+
+    @Override
+    public void init() {
+        maxLagMillis = Long.parseLong(props.getProperty(MAX_LAG_MILLIS_KEY, String.valueOf(getDefaultMaxLagMillis())));
+        saturatedFallback = SaturatedFallback.valueOf(props.getProperty(SATURATED_FALLBACK_KEY, SaturatedFallback.FAIL.name()).toUpperCase());
+    }
+
+    @Override
+    public String getDataSource(String name, String writeDataSourceName, List<String> readDataSourceNames) {
+        if (!ReplicaPinContext.isActive()) {
+            return route(name, writeDataSourceName, readDataSourceNames);
+        }
+        String pinned = ReplicaPinContext.getPinned(name);
+        if (pinned == null) {
+            pinned = route(name, writeDataSourceName, readDataSourceNames);
+            ReplicaPinContext.pin(name, pinned);
+        }
+        return pinned;
+    }
+
+    private String route(String name, String writeDataSourceName, List<String> readDataSourceNames) {
+        long token = ConsistencyContext.get();
+        List<ReplicaState> candidates = new ArrayList<>(readDataSourceNames.size());
+        List<ReplicaState> saturated = null;
+        for (String readDataSourceName : readDataSourceNames) {
+            ReplicaState state = ReplicaStates.get(readDataSourceName);
+            if (state.isAvailable()
+                    && (maxLagMillis == UNLIMITED || state.isLagWithin(maxLagMillis))
+                    && state.isCaughtUpTo(token)) {
+                if (!state.getAdmission().isSaturated()) {
+                    candidates.add(state);
+                } else {
+                    if (saturated == null) {
+                        saturated = new ArrayList<>(readDataSourceNames.size());
+                    }
+                    saturated.add(state);
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            return select(name, candidates).getName();
+        }
+        if (saturated == null) {
+            return writeDataSourceName;
+        }
+        for (ReplicaState state : saturated) {
+            state.getAdmission().onShed();
+        }
+        if (saturatedFallback == SaturatedFallback.WRITE && !ReplicaStates.get(writeDataSourceName).getAdmission().isSaturated()) {
+            return writeDataSourceName;
+        }
+        throw new IllegalStateException("All read data sources of '" + name + "' are saturated");
+    }
+
+    /**
+     * Returns the default value of <code>max-lag-millis</code>.
+     */
+    protected long getDefaultMaxLagMillis() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Selects a read data source from the available candidates.
+     *
+     * @param name       the logic data source name.
+     * @param candidates the available read data sources, never empty.
+     */
+    protected abstract ReplicaState select(String name, List<ReplicaState> candidates);
+
+    public enum SaturatedFallback {
+        /** 立即失败 */
+        FAIL,
+        /** 路由至写库 */
+        WRITE
+    }
+}
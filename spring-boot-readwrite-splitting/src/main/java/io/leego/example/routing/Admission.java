@@ -0,0 +1,84 @@
+package io.leego.example.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据源准入控制。
+ * <p>
+ * 限制同时等待获取连接的线程数，超过 <code>maxWaiting</code> 的请求立即被拒绝，而不是在连接池上排队直至耗尽请求线程。
+ * 等待的最长时间由连接池的 <code>connection-timeout</code> 决定。
+ * 读库饱和时，读取在路由阶段即按负载均衡算法的 <code>saturated-fallback</code> 改道或失败，
+ * 见 {@link AbstractReplicaReadQueryLoadBalanceAlgorithm}，读库只有一个时由 {@link ReplicaAwareReadwriteSplittingSQLRouter} 调用该算法。
+ *
+ * @author Leego Yih
+ * @see AdmissionHikariDataSource
+ */
+public class Admission {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private volatile int maxWaiting;
+
+    public Admission(int maxWaiting) {
+        this.maxWaiting = maxWaiting;
+    }
+
+    public static Admission unlimited() {
+        return new Admission(UNLIMITED);
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public void setMaxWaiting(int maxWaiting) {
+        this.maxWaiting = maxWaiting;
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Returns the number of connection requests rejected by the data source.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of reads routed away from the data source, or failed, because it was saturated.
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * Returns <code>true</code> if no more threads may wait for a connection.
+     */
+    public boolean isSaturated() {
+        return waiting.get() >= maxWaiting;
+    }
+
+    /**
+     * Enters the waiting queue, {@link #exit()} must be called if <code>true</code> is returned.
+     */
+    public boolean tryEnter() {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void exit() {
+        waiting.decrementAndGet();
+    }
+
+    public void onShed() {
+        shed.increment();
+    }
+}
@@ -0,0 +1,42 @@
+package io.leego.example.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 带准入控制的 Hikari 连接池，在 <code>spring.shardingsphere.datasource.*.type</code> 中使用。
+ * <p>
+ * 等待获取连接的线程数达到上限后，新的请求立即失败，避免某个数据源变慢时请求线程全部阻塞在该连接池上。
+ * 准入控制由 {@link ReplicaMetrics} 按数据源角色配置，配置前不限制。
+ *
+ * @author Leego Yih
+ * @see Admission
+ */
+public class AdmissionHikariDataSource extends HikariDataSource {
+    private volatile Admission admission = Admission.unlimited();
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Admission admission = this.admission;
+        if (!admission.tryEnter()) {
+            throw new SQLTransientConnectionException(getPoolName() + " - Connection is not available, "
+                    + admission.getMaxWaiting() + " threads are already waiting.");
+        }
+        try {
+            return super.getConnection();
+        } finally {
+            admission.exit();
+        }
+    }
+}
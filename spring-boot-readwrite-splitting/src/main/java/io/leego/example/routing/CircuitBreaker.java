@@ -0,0 +1,95 @@
+package io.leego.example.routing;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * 读库熔断器。
+ * <ul>
+ * <li><code>CLOSED</code>：读库可用，连续失败达到 <code>failureThreshold</code> 次后熔断</li>
+ * <li><code>OPEN</code>：读库不可用，经过 <code>openDuration</code> 后进入半开状态</li>
+ * <li><code>HALF_OPEN</code>：读库仍不可用，连续成功达到 <code>successThreshold</code> 次后恢复，任意一次失败则重新熔断</li>
+ * </ul>
+ *
+ * @author Leego Yih
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final int successThreshold;
+    private final long openNanos;
+    private final BiConsumer<State, State> listener;
+    private volatile State state = State.CLOSED;
+    private int failures;
+    private int successes;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold the number of consecutive failures that opens the circuit.
+     * @param successThreshold the number of consecutive successes that closes a half-open circuit.
+     * @param openDuration     the duration an open circuit waits before becoming half-open.
+     * @param listener         the listener of state transitions, receiving the previous and the current state.
+     */
+    public CircuitBreaker(int failureThreshold, int successThreshold, Duration openDuration, BiConsumer<State, State> listener) {
+        this.failureThreshold = failureThreshold;
+        this.successThreshold = successThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.listener = listener;
+    }
+
+    /**
+     * Returns a circuit breaker that is always closed.
+     */
+    public static CircuitBreaker alwaysClosed() {
+        return new CircuitBreaker(Integer.MAX_VALUE, 1, Duration.ZERO, (from, to) -> {
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Returns <code>true</code> if a probe should be sent, i.e. the circuit is not open,
+     * or it has been open for longer than the open duration (in which case it becomes half-open).
+     */
+    public synchronized boolean allowProbe() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        if (state == State.HALF_OPEN && ++successes >= successThreshold) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        successes = 0;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && ++failures >= failureThreshold)) {
+            openedAt = System.nanoTime();
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        failures = 0;
+        successes = 0;
+        listener.accept(previous, next);
+    }
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+}
@@ -0,0 +1,34 @@
+package io.leego.example.routing;
+
+/**
+ * 读写一致性上下文，保存当前线程的一致性令牌。
+ * <p>
+ * 一致性令牌为写事务提交后的时间戳，携带令牌的读请求只会路由至心跳时间戳晚于该令牌的读库，
+ * 若不存在这样的读库则路由至写库，以保证客户端能读到自己的写入。
+ * 令牌在 ShardingSphere 选定读库后由 {@link ReplicaAwareReadwriteSplittingSQLRouter} 校验，与读库数量及负载均衡算法无关。
+ *
+ * @author Leego Yih
+ */
+public final class ConsistencyContext {
+    public static final String HEADER_NAME = "X-Consistency-Token";
+    private static final ThreadLocal<Long> TOKEN = new ThreadLocal<>();
+
+    private ConsistencyContext() {
+    }
+
+    /**
+     * Returns the consistency token of the current thread, or <code>0</code> if absent.
+     */
+    public static long get() {
+        Long token = TOKEN.get();
+        return token == null ? 0L : token;
+    }
+
+    public static void set(long token) {
+        TOKEN.set(token);
+    }
+
+    public static void clear() {
+        TOKEN.remove();
+    }
+}
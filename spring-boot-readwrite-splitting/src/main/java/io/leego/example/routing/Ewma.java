@@ -0,0 +1,38 @@
+package io.leego.example.routing;
+
+/**
+ * 基于时间衰减的指数加权移动平均值（Peak EWMA）。
+ * <p>
+ * 样本大于当前值时立即取样本值，否则按距上次更新的时间衰减；读取时按空闲时间向 <code>0</code> 衰减。
+ *
+ * @author Leego Yih
+ */
+public class Ewma {
+    private final double decayNanos;
+    private double value;
+    private long timestamp;
+
+    /**
+     * @param decayNanos the time constant of the decay in nanoseconds.
+     */
+    public Ewma(long decayNanos) {
+        this.decayNanos = decayNanos;
+        this.timestamp = System.nanoTime();
+    }
+
+    public synchronized void update(double sample) {
+        long now = System.nanoTime();
+        if (sample > value) {
+            value = sample;
+        } else {
+            double weight = Math.exp(-(now - timestamp) / decayNanos);
+            value = value * weight + sample * (1 - weight);
+        }
+        timestamp = now;
+    }
+
+    public synchronized double get() {
+        long idle = System.nanoTime() - timestamp;
+        return value * Math.exp(-idle / decayNanos);
+    }
+}
@@ -0,0 +1,246 @@
+package io.leego.example.routing;
+
+import io.leego.example.config.ReadWriteSplittingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 对冲读取（Hedged Read）。
+ * <p>
+ * 先在负载评分最优的读库上执行查询，若超过对冲延迟仍未返回，则在次优的读库（没有则为写库）上再次执行同一查询，
+ * 采用先返回的结果并取消另一条语句。对冲延迟取最近查询延迟的分位数（<code>readwrite-splitting.hedge.percentile</code>），
+ * 并限制在 <code>min-delay</code> 与 <code>max-delay</code> 之间。
+ * <p>
+ * 对冲读取直接访问物理数据源，因此只适用于按主键查询等可以在任意副本上执行的单条只读语句，
+ * 且只支持一个读写分离数据源，分库时自动禁用。设置了 {@link HintManager#setWriteRouteOnly()} 时只查询写库。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class HedgedReadExecutor implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(HedgedReadExecutor.class);
+    private final RoutingDataSources routingDataSources;
+    private final ReadWriteSplittingProperties.Hedge properties;
+    private final LatencyPercentile latencyPercentile;
+    private final ThreadPoolExecutor executor;
+    private final Counter requests;
+    private final Counter hedges;
+    private final Counter primaryWins;
+    private final Counter hedgeWins;
+
+    public HedgedReadExecutor(RoutingDataSources routingDataSources, ReadWriteSplittingProperties properties, MeterRegistry meterRegistry) {
+        this.routingDataSources = routingDataSources;
+        this.properties = properties.getHedge();
+        this.latencyPercentile = new LatencyPercentile(this.properties.getWindowSize(), this.properties.getPercentile());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                this.properties.getPoolSize(), this.properties.getPoolSize(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(this.properties.getPoolSize()),
+                r -> {
+                    Thread thread = new Thread(r, "hedged-read-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.requests = Counter.builder("hedge.requests").register(meterRegistry);
+        this.hedges = Counter.builder("hedge.hedged").register(meterRegistry);
+        this.primaryWins = Counter.builder("hedge.wins").tag("winner", "primary").register(meterRegistry);
+        this.hedgeWins = Counter.builder("hedge.wins").tag("winner", "hedge").register(meterRegistry);
+        Gauge.builder("hedge.delay", this, o -> o.getDelayNanos() / 1e6).baseUnit("milliseconds").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled() && routingDataSources.getRules().size() == 1;
+    }
+
+    /**
+     * Executes a read-only query, hedging it on a second data source if the first one is slow.
+     *
+     * @param sql       the SQL to execute.
+     * @param extractor the result set extractor.
+     * @param args      the arguments to bind to the query.
+     */
+    public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... args) {
+        requests.increment();
+        List<String> targets = getTargets();
+        if (targets.size() < 2) {
+            return new HedgedQuery<>(targets.get(0), sql, extractor, args).call();
+        }
+        HedgedQuery<T> primary = new HedgedQuery<>(targets.get(0), sql, extractor, args);
+        HedgedQuery<T> hedge = new HedgedQuery<>(targets.get(1), sql, extractor, args);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        long start = System.nanoTime();
+        Future<T> primaryFuture;
+        try {
+            primaryFuture = completionService.submit(primary);
+        } catch (RejectedExecutionException e) {
+            return primary.call();
+        }
+        try {
+            Future<T> completed = completionService.poll(getDelayNanos(), TimeUnit.NANOSECONDS);
+            if (completed != null) {
+                latencyPercentile.record(System.nanoTime() - start);
+                return completed.get();
+            }
+            Future<T> hedgeFuture;
+            try {
+                hedgeFuture = completionService.submit(hedge);
+                hedges.increment();
+            } catch (RejectedExecutionException e) {
+                T result = primaryFuture.get();
+                latencyPercentile.record(System.nanoTime() - start);
+                return result;
+            }
+            return awaitFirst(completionService, primaryFuture, primary, hedgeFuture, hedge, start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel();
+            throw new IllegalStateException("Interrupted while waiting for hedged read", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private <T> T awaitFirst(CompletionService<T> completionService,
+                             Future<T> primaryFuture, HedgedQuery<T> primary,
+                             Future<T> hedgeFuture, HedgedQuery<T> hedge,
+                             long start) throws InterruptedException, ExecutionException {
+        Future<T> first = completionService.take();
+        Future<T> second = first == primaryFuture ? hedgeFuture : primaryFuture;
+        HedgedQuery<T> loser = first == primaryFuture ? hedge : primary;
+        try {
+            T result = first.get();
+            latencyPercentile.record(System.nanoTime() - start);
+            (first == primaryFuture ? primaryWins : hedgeWins).increment();
+            loser.cancel();
+            second.cancel(true);
+            return result;
+        } catch (ExecutionException e) {
+            // 先返回的查询失败，等待另一条查询
+            logger.warn("Hedged read on '{}' failed: {}", first == primaryFuture ? primary.dataSourceName : hedge.dataSourceName, e.getCause().getMessage());
+            T result = second.get();
+            (second == primaryFuture ? primaryWins : hedgeWins).increment();
+            return result;
+        }
+    }
+
+    /**
+     * Returns the delay in nanoseconds before sending the hedged query.
+     */
+    public long getDelayNanos() {
+        long min = properties.getMinDelay().toNanos();
+        long max = properties.getMaxDelay().toNanos();
+        long percentile = latencyPercentile.get();
+        return percentile < 0 ? max : Math.max(min, Math.min(max, percentile));
+    }
+
+    /**
+     * Returns the primary and hedge data sources, ordered by preference.
+     */
+    private List<String> getTargets() {
+        if (HintManager.isWriteRouteOnly()) {
+            return Collections.singletonList(routingDataSources.getWriteDataSourceNames().iterator().next());
+        }
+        long token = ConsistencyContext.get();
+        long maxLagMillis = properties.getMaxLag().toMillis();
+        List<ReplicaState> candidates = new ArrayList<>();
+        for (String readDataSourceName : routingDataSources.getReadDataSourceNames()) {
+            ReplicaState state = ReplicaStates.get(readDataSourceName);
+            if (state.isAvailable() && state.isLagWithin(maxLagMillis) && state.isCaughtUpTo(token)) {
+                candidates.add(state);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(ReplicaState::getScore));
+        List<String> targets = new ArrayList<>(2);
+        for (int i = 0; i < candidates.size() && i < 2; i++) {
+            targets.add(candidates.get(i).getName());
+        }
+        if (targets.size() < 2) {
+            targets.add(routingDataSources.getWriteDataSourceNames().iterator().next());
+        }
+        return targets;
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private class HedgedQuery<T> implements Callable<T> {
+        private final String dataSourceName;
+        private final String sql;
+        private final ResultSetExtractor<T> extractor;
+        private final Object[] args;
+        private final AtomicReference<PreparedStatement> statement = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        HedgedQuery(String dataSourceName, String sql, ResultSetExtractor<T> extractor, Object[] args) {
+            this.dataSourceName = dataSourceName;
+            this.sql = sql;
+            this.extractor = extractor;
+            this.args = args;
+        }
+
+        @Override
+        public T call() {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(routingDataSources.getDataSource(dataSourceName));
+            PreparedStatementCreator creator = connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql);
+                for (int i = 0; i < args.length; i++) {
+                    ps.setObject(i + 1, args[i]);
+                }
+                statement.set(ps);
+                if (cancelled) {
+                    ps.cancel();
+                }
+                return ps;
+            };
+            return jdbcTemplate.query(creator, extractor);
+        }
+
+        void cancel() {
+            cancelled = true;
+            PreparedStatement ps = statement.get();
+            if (ps != null) {
+                try {
+                    ps.cancel();
+                } catch (SQLException e) {
+                    logger.debug("Failed to cancel hedged read on '{}': {}", dataSourceName, e.getMessage());
+                }
+            }
+        }
+    }
+}
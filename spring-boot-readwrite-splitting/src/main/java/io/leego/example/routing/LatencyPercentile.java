@@ -0,0 +1,49 @@
+package io.leego.example.routing;
+
+import java.util.Arrays;
+
+/**
+ * 基于最近 N 个样本估算延迟分位数。
+ * <p>
+ * 样本保存在环形缓冲区中，每记录 {@link #RECOMPUTE_INTERVAL} 个样本重新计算一次分位数，避免每次读取都排序。
+ *
+ * @author Leego Yih
+ */
+public class LatencyPercentile {
+    private static final int RECOMPUTE_INTERVAL = 64;
+    private final long[] samples;
+    private final double percentile;
+    private int size;
+    private int index;
+    private int recorded;
+    private volatile long value = -1L;
+
+    /**
+     * @param capacity   the number of the most recent samples kept.
+     * @param percentile the percentile to estimate, between <code>0</code> and <code>1</code>.
+     */
+    public LatencyPercentile(int capacity, double percentile) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[index] = nanos;
+        index = (index + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        if (++recorded % RECOMPUTE_INTERVAL == 0 || value < 0) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            value = sorted[Math.max(0, Math.min(size - 1, (int) Math.ceil(percentile * size) - 1))];
+        }
+    }
+
+    /**
+     * Returns the estimated percentile in nanoseconds, or <code>-1</code> if no sample has been recorded.
+     */
+    public long get() {
+        return value;
+    }
+}
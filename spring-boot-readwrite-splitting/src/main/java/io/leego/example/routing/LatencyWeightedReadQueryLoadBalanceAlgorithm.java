@@ -0,0 +1,34 @@
+package io.leego.example.routing;
+
+import java.util.List;
+
+/**
+ * 基于延迟加权的读库负载均衡算法。
+ * <p>
+ * 选择 {@link ReplicaState#getScore()} 最小的读库，即查询延迟的指数加权移动平均值与进行中的查询数之积最小的读库。
+ * 空闲读库的延迟会随时间衰减，因此变慢的读库在一段时间后仍会重新获得少量请求，用于探测其是否恢复。
+ *
+ * @author Leego Yih
+ */
+public class LatencyWeightedReadQueryLoadBalanceAlgorithm extends AbstractReplicaReadQueryLoadBalanceAlgorithm {
+    public static final String TYPE = "LATENCY_WEIGHTED";
+
+    @Override
+    protected ReplicaState select(String name, List<ReplicaState> candidates) {
+        ReplicaState best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (ReplicaState candidate : candidates) {
+            double score = candidate.getScore();
+            if (best == null || score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+}
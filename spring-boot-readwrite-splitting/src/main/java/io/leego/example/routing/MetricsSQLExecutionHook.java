@@ -0,0 +1,40 @@
+package io.leego.example.routing;
+
+import org.apache.shardingsphere.infra.database.metadata.DataSourceMetaData;
+import org.apache.shardingsphere.infra.executor.sql.hook.SQLExecutionHook;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在 ShardingSphere 执行每条实际语句时记录路由结果与执行耗时，见 {@link QueryMetrics}。
+ * <p>
+ * ShardingSphere 为每个执行单元创建新的实例，因此可以在实例中保存开始时间。
+ *
+ * @author Leego Yih
+ */
+public class MetricsSQLExecutionHook implements SQLExecutionHook {
+    private QueryMetrics.Meters meters;
+    private long startNanos;
+
+    @Override
+    public void start(String dataSourceName, String sql, List<Object> parameters, DataSourceMetaData dataSourceMetaData,
+                      boolean isTrunkThread, Map<String, Object> shardingExecuteDataMap) {
+        meters = QueryMetrics.onRoute(dataSourceName, QueryMetrics.typeOf(sql));
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void finishSuccess() {
+        if (meters != null) {
+            meters.record(System.nanoTime() - startNanos, true);
+        }
+    }
+
+    @Override
+    public void finishFailure(Exception cause) {
+        if (meters != null) {
+            meters.record(System.nanoTime() - startNanos, false);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.leego.example.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按数据源与语句类型采集路由及查询延迟指标，替代 <code>sql-show</code> 日志。
+ * <ul>
+ * <li><code>datasource.routes</code>：路由至该物理数据源的语句数</li>
+ * <li><code>datasource.queries</code>：语句执行耗时的直方图，<code>outcome</code> 为 <code>success</code> 或 <code>failure</code></li>
+ * </ul>
+ * 标签 <code>group</code> 为读写分离的逻辑数据源名，<code>role</code> 为 <code>write</code> 或 <code>read</code>，
+ * <code>type</code> 为 <code>select</code>、<code>insert</code>、<code>update</code>、<code>delete</code> 或 <code>other</code>。
+ * 读语句出现在 <code>role=write</code> 的数据源上即为路由至写库的读取。
+ * <p>
+ * 指标按数据源名及语句类型缓存，记录时不拼接键；数据源下线或分组、角色变化时从 {@link MeterRegistry} 中移除其指标。
+ * <p>
+ * ShardingSphere 通过 SPI 自行实例化 {@link MetricsSQLExecutionHook}，因此与 {@link ReplicaStates} 一样以静态注册表共享。
+ *
+ * @author Leego Yih
+ */
+public final class QueryMetrics {
+    private static final String[] TYPES = {"select", "insert", "update", "delete", "other"};
+    private static final int OTHER = TYPES.length - 1;
+    private static final Route UNKNOWN = new Route("unknown", "unknown");
+    private static final ConcurrentMap<String, Route> ROUTES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, DataSourceMeters> METERS = new ConcurrentHashMap<>();
+    private static volatile MeterRegistry meterRegistry;
+
+    private QueryMetrics() {
+    }
+
+    public static void bind(MeterRegistry registry) {
+        meterRegistry = registry;
+        METERS.clear();
+    }
+
+    /**
+     * Replaces the mapping from physical data source names to readwrite-splitting groups and roles.
+     * The meters of the data sources whose group or role changed, or which were dropped, are removed from the registry.
+     *
+     * @param routes the routes keyed by physical data source name.
+     */
+    public static void setRoutes(Map<String, Route> routes) {
+        ROUTES.keySet().retainAll(routes.keySet());
+        ROUTES.putAll(routes);
+        for (Iterator<DataSourceMeters> iterator = METERS.values().iterator(); iterator.hasNext(); ) {
+            DataSourceMeters meters = iterator.next();
+            if (!meters.route.equals(routes.getOrDefault(meters.dataSourceName, UNKNOWN))) {
+                iterator.remove();
+                meters.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the meters of a dropped data source from the registry.
+     *
+     * @param dataSourceName the name of the data source.
+     */
+    public static void remove(String dataSourceName) {
+        DataSourceMeters meters = METERS.remove(dataSourceName);
+        if (meters != null) {
+            meters.remove();
+        }
+    }
+
+    /**
+     * Records a statement routed to the given physical data source.
+     *
+     * @param type the statement type returned by {@link #typeOf(String)}.
+     * @return the meters to record the execution with, or <code>null</code> if no registry is bound.
+     */
+    static Meters onRoute(String dataSourceName, int type) {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return null;
+        }
+        DataSourceMeters dataSourceMeters = METERS.get(dataSourceName);
+        if (dataSourceMeters == null) {
+            dataSourceMeters = METERS.computeIfAbsent(dataSourceName, key -> new DataSourceMeters(registry, key));
+        }
+        Meters meters = dataSourceMeters.get(type);
+        meters.routes.increment();
+        return meters;
+    }
+
+    /**
+     * Returns the statement type by the leading keyword, without allocating.
+     */
+    static int typeOf(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length && (Character.isWhitespace(sql.charAt(i)) || sql.charAt(i) == '(')) {
+            i++;
+        }
+        for (int type = 0; type < OTHER; type++) {
+            if (sql.regionMatches(true, i, TYPES[type], 0, TYPES[type].length())) {
+                return type;
+            }
+        }
+        return OTHER;
+    }
+
+    public static class Route {
+        private final String group;
+        private final String role;
+
+        public Route(String group, String role) {
+            this.group = group;
+            this.role = role;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Route)) {
+                return false;
+            }
+            Route route = (Route) o;
+            return group.equals(route.group) && role.equals(route.role);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, role);
+        }
+    }
+
+    /**
+     * The meters of a data source, created on first use for each statement type.
+     */
+    private static class DataSourceMeters {
+        private final MeterRegistry registry;
+        private final String dataSourceName;
+        private final Route route;
+        private final AtomicReferenceArray<Meters> meters = new AtomicReferenceArray<>(TYPES.length);
+
+        DataSourceMeters(MeterRegistry registry, String dataSourceName) {
+            this.registry = registry;
+            this.dataSourceName = dataSourceName;
+            this.route = ROUTES.getOrDefault(dataSourceName, UNKNOWN);
+        }
+
+        Meters get(int type) {
+            Meters value = meters.get(type);
+            if (value == null) {
+                // 注册相同的指标返回同一实例，并发创建时无需加锁
+                value = new Meters(registry, route, dataSourceName, TYPES[type]);
+                meters.compareAndSet(type, null, value);
+            }
+            return value;
+        }
+
+        void remove() {
+            for (int i = 0; i < meters.length(); i++) {
+                Meters value = meters.get(i);
+                if (value != null) {
+                    registry.remove(value.routes);
+                    registry.remove(value.success);
+                    registry.remove(value.failure);
+                }
+            }
+        }
+    }
+
+    static class Meters {
+        private final Counter routes;
+        private final Timer success;
+        private final Timer failure;
+
+        Meters(MeterRegistry registry, Route route, String dataSourceName, String type) {
+            this.routes = Counter.builder("datasource.routes")
+                    .tag("group", route.group).tag("datasource", dataSourceName).tag("role", route.role).tag("type", type)
+                    .register(registry);
+            this.success = timer(registry, route, dataSourceName, type, "success");
+            this.failure = timer(registry, route, dataSourceName, type, "failure");
+        }
+
+        private static Timer timer(MeterRegistry registry, Route route, String dataSourceName, String type, String outcome) {
+            return Timer.builder("datasource.queries")
+                    .tag("group", route.group).tag("datasource", dataSourceName).tag("role", route.role).tag("type", type)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        void record(long nanos, boolean succeeded) {
+            (succeeded ? success : failure).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
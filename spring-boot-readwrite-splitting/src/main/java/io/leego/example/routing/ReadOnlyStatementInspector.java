@@ -0,0 +1,25 @@
+package io.leego.example.routing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 禁止在绑定读库的只读事务中执行写语句。
+ *
+ * @author Leego Yih
+ * @see io.leego.example.annotation.RouteToReplica
+ */
+public class ReadOnlyStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        if (ReplicaPinContext.isActive() && !isSelect(sql)) {
+            throw new IllegalStateException("Write statement is not allowed in a replica-routed read-only transaction: " + sql);
+        }
+        return sql;
+    }
+
+    private boolean isSelect(String sql) {
+        String s = sql.trim();
+        return s.regionMatches(true, 0, "select", 0, 6) || s.regionMatches(true, 0, "with", 0, 4);
+    }
+}
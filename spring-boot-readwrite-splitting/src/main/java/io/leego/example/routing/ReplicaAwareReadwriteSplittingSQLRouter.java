@@ -0,0 +1,108 @@
+package io.leego.example.routing;
+
+import org.apache.shardingsphere.infra.binder.LogicSQL;
+import org.apache.shardingsphere.infra.config.props.ConfigurationProperties;
+import org.apache.shardingsphere.infra.metadata.ShardingSphereMetaData;
+import org.apache.shardingsphere.infra.route.SQLRouter;
+import org.apache.shardingsphere.infra.route.context.RouteContext;
+import org.apache.shardingsphere.infra.route.context.RouteMapper;
+import org.apache.shardingsphere.infra.route.context.RouteUnit;
+import org.apache.shardingsphere.readwritesplitting.constant.ReadwriteSplittingOrder;
+import org.apache.shardingsphere.readwritesplitting.route.ReadwriteSplittingSQLRouter;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingDataSourceRule;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 读写分离路由，委托 {@link ReadwriteSplittingSQLRouter} 完成路由后，校正路由至读库的结果。
+ * <p>
+ * 读写分离数据源只有一个读库时，ShardingSphere 5.1.1 直接路由至该读库而不调用负载均衡算法，
+ * 复制延迟、健康检查、一致性令牌与准入控制均不生效。此时重新调用负载均衡算法，由算法决定路由至读库、写库或失败。
+ * 无论读库数量与负载均衡算法，路由至已熔断（见 {@link ReplicaHealthChecker}）或未追上当前一致性令牌（见 {@link ConsistencyContext}）
+ * 的读库的查询均改为路由至写库。
+ * <p>
+ * 同一规则类型注册了多个路由时，ShardingSphere 使用顺序最大者，因此本路由的顺序大于 {@link ReadwriteSplittingSQLRouter}。
+ *
+ * @author Leego Yih
+ * @see AbstractReplicaReadQueryLoadBalanceAlgorithm
+ */
+public class ReplicaAwareReadwriteSplittingSQLRouter implements SQLRouter<ReadwriteSplittingRule> {
+    public static final int ORDER = ReadwriteSplittingOrder.ORDER + 1;
+    private final ReadwriteSplittingSQLRouter delegate = new ReadwriteSplittingSQLRouter();
+
+    @Override
+    public RouteContext createRouteContext(LogicSQL logicSQL, ShardingSphereMetaData metaData, ReadwriteSplittingRule rule, ConfigurationProperties props) {
+        RouteContext routeContext = delegate.createRouteContext(logicSQL, metaData, rule, props);
+        reroute(routeContext, rule, rule.getSingleDataSourceRule());
+        return routeContext;
+    }
+
+    @Override
+    public void decorateRouteContext(RouteContext routeContext, LogicSQL logicSQL, ShardingSphereMetaData metaData,
+                                     ReadwriteSplittingRule rule, ConfigurationProperties props) {
+        delegate.decorateRouteContext(routeContext, logicSQL, metaData, rule, props);
+        reroute(routeContext, rule, null);
+    }
+
+    /**
+     * Reroutes the route units routed to a read data source.
+     *
+     * @param routeContext         the route context.
+     * @param rule                 the readwrite-splitting rule.
+     * @param singleDataSourceRule the data source rule of all route units, or <code>null</code> to find it by the logic name.
+     */
+    private void reroute(RouteContext routeContext, ReadwriteSplittingRule rule, ReadwriteSplittingDataSourceRule singleDataSourceRule) {
+        Collection<RouteUnit> toBeRemoved = new ArrayList<>();
+        Collection<RouteUnit> toBeAdded = new ArrayList<>();
+        for (RouteUnit routeUnit : routeContext.getRouteUnits()) {
+            RouteMapper dataSourceMapper = routeUnit.getDataSourceMapper();
+            Optional<ReadwriteSplittingDataSourceRule> dataSourceRule = singleDataSourceRule != null
+                    ? Optional.of(singleDataSourceRule)
+                    : rule.findDataSourceRule(dataSourceMapper.getLogicName());
+            if (!dataSourceRule.isPresent()) {
+                continue;
+            }
+            String actualName = route(dataSourceRule.get(), dataSourceMapper.getActualName());
+            if (!actualName.equals(dataSourceMapper.getActualName())) {
+                toBeRemoved.add(routeUnit);
+                toBeAdded.add(new RouteUnit(new RouteMapper(dataSourceMapper.getLogicName(), actualName), routeUnit.getTableMappers()));
+            }
+        }
+        routeContext.getRouteUnits().removeAll(toBeRemoved);
+        routeContext.getRouteUnits().addAll(toBeAdded);
+    }
+
+    private String route(ReadwriteSplittingDataSourceRule dataSourceRule, String actualName) {
+        List<String> readDataSourceNames = dataSourceRule.getReadDataSourceNames();
+        if (!readDataSourceNames.contains(actualName)) {
+            return actualName;
+        }
+        String writeDataSourceName = dataSourceRule.getWriteDataSource();
+        String routed = readDataSourceNames.size() == 1
+                ? dataSourceRule.getLoadBalancer().getDataSource(dataSourceRule.getName(), writeDataSourceName, readDataSourceNames)
+                : actualName;
+        if (routed.equals(writeDataSourceName)) {
+            return routed;
+        }
+        // 熔断与一致性令牌关系到查询能否成功及读己之写，不依赖所配置的负载均衡算法
+        ReplicaState state = ReplicaStates.get(routed);
+        if (!state.isAvailable() || !state.isCaughtUpTo(ConsistencyContext.get())) {
+            return writeDataSourceName;
+        }
+        return routed;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Class<ReadwriteSplittingRule> getTypeClass() {
+        return ReadwriteSplittingRule.class;
+    }
+}
@@ -0,0 +1,125 @@
+package io.leego.example.routing;
+
+import io.leego.example.config.ReadWriteSplittingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读库健康检查。
+ * <p>
+ * 定期在每个读库上执行探测语句，探测结果计入读库的熔断器（见 {@link CircuitBreaker}）。
+ * 熔断的读库不参与负载均衡，恢复后重新加入；所有读库均不可用时，读请求路由至写库。
+ * 只有一个读库或使用 ShardingSphere 内置的负载均衡算法时，由 {@link ReplicaAwareReadwriteSplittingSQLRouter} 将路由至熔断读库的查询改为路由至写库。
+ *
+ * @author Leego Yih
+ */
+@Component
+@ConditionalOnProperty(prefix = "readwrite-splitting.health", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReplicaHealthChecker implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+    private final RoutingDataSources routingDataSources;
+    private final ReadWriteSplittingProperties.Health properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ScheduledFuture<?>> probes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public ReplicaHealthChecker(RoutingDataSources routingDataSources, ReadWriteSplittingProperties properties, MeterRegistry meterRegistry) {
+        this.routingDataSources = routingDataSources;
+        this.properties = properties.getHealth();
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(this.properties.getPoolSize(), r -> {
+            Thread thread = new Thread(r, "replica-health-checker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String readDataSourceName : routingDataSources.getReadDataSourceNames()) {
+            register(readDataSourceName);
+        }
+    }
+
+    /**
+     * Installs a circuit breaker on the replica and starts probing it.
+     *
+     * @param name the name of the read data source.
+     */
+    public void register(String name) {
+        ReplicaState state = ReplicaStates.get(name);
+        state.setCircuitBreaker(new CircuitBreaker(
+                properties.getFailureThreshold(),
+                properties.getSuccessThreshold(),
+                properties.getOpenDuration(),
+                (from, to) -> onTransition(name, from, to)));
+        long interval = properties.getInterval().toMillis();
+        ScheduledFuture<?> previous = probes.put(name, executor.scheduleWithFixedDelay(() -> probe(state), interval, interval, TimeUnit.MILLISECONDS));
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Stops probing the replica.
+     *
+     * @param name the name of the read data source.
+     */
+    public void unregister(String name) {
+        ScheduledFuture<?> probe = probes.remove(name);
+        if (probe != null) {
+            probe.cancel(false);
+        }
+    }
+
+    private void probe(ReplicaState state) {
+        CircuitBreaker circuitBreaker = state.getCircuitBreaker();
+        if (!circuitBreaker.allowProbe()) {
+            return;
+        }
+        DataSource dataSource = routingDataSources.getDataSource(state.getName());
+        if (dataSource == null) {
+            return;
+        }
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setQueryTimeout((int) Math.max(1, properties.getTimeout().getSeconds()));
+            jdbcTemplate.queryForObject(properties.getQuery(), Integer.class);
+            circuitBreaker.onSuccess();
+        } catch (Exception e) {
+            logger.warn("Health check of '{}' failed: {}", state.getName(), e.getMessage());
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private void onTransition(String name, CircuitBreaker.State from, CircuitBreaker.State to) {
+        logger.info("Replica '{}' circuit breaker: {} -> {}", name, from, to);
+        Counter.builder("replica.circuit.transitions")
+                .tag("datasource", name)
+                .tag("state", to.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
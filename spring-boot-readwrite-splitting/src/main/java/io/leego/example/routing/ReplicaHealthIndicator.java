@@ -0,0 +1,40 @@
+package io.leego.example.routing;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 在 <code>/actuator/health</code> 中展示各读库的熔断器状态与复制延迟。
+ * <p>
+ * 读库全部不可用时读请求仍可路由至写库，因此始终报告 <code>UP</code>。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class ReplicaHealthIndicator extends AbstractHealthIndicator {
+    private final RoutingDataSources routingDataSources;
+
+    public ReplicaHealthIndicator(RoutingDataSources routingDataSources) {
+        this.routingDataSources = routingDataSources;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        int available = 0;
+        for (String readDataSourceName : routingDataSources.getReadDataSourceNames()) {
+            ReplicaState state = ReplicaStates.get(readDataSourceName);
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("circuit", state.getCircuitBreaker().getState());
+            details.put("lag", state.getLagMillis());
+            builder.withDetail(readDataSourceName, details);
+            if (state.isAvailable()) {
+                available++;
+            }
+        }
+        builder.up().withDetail("available", available);
+    }
+}
@@ -0,0 +1,129 @@
+package io.leego.example.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.config.ReadWriteSplittingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingDataSourceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为每个物理数据源安装连接池采集器及准入控制（见 {@link Admission}），并以指标的形式输出读库状态。
+ * <ul>
+ * <li><code>replica.latency</code>：查询延迟的指数加权移动平均值（毫秒）</li>
+ * <li><code>replica.in-flight</code>：进行中的查询数</li>
+ * <li><code>replica.score</code>：负载评分，越小越优先</li>
+ * <li><code>replica.lag</code>：复制延迟（毫秒），<code>-1</code> 表示未知</li>
+ * <li><code>replica.circuit</code>：熔断器状态，<code>0</code> 关闭、<code>1</code> 半开、<code>2</code> 打开</li>
+ * <li><code>datasource.connection.acquire</code>：从连接池获取连接的等待时间</li>
+ * <li><code>datasource.admission.waiting</code>：等待获取连接的线程数</li>
+ * <li><code>datasource.admission.rejected</code>：因等待线程数达到上限而被拒绝的连接请求数</li>
+ * <li><code>datasource.admission.shed</code>：因读库饱和而改道或失败的读取数</li>
+ * </ul>
+ * 路由与查询延迟指标见 {@link QueryMetrics}。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class ReplicaMetrics implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaMetrics.class);
+    private static final String TAG = "datasource";
+    private final RoutingDataSources routingDataSources;
+    private final ReadWriteSplittingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    public ReplicaMetrics(RoutingDataSources routingDataSources, ReadWriteSplittingProperties properties, MeterRegistry meterRegistry) {
+        this.routingDataSources = routingDataSources;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        QueryMetrics.bind(meterRegistry);
+        refreshRoutes();
+        for (Map.Entry<String, DataSource> entry : routingDataSources.getDataSourceMap().entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void register(String name, DataSource dataSource) {
+        ReplicaState state = ReplicaStates.get(name);
+        List<Meter> registered = new ArrayList<>();
+        state.setLatencyDecay(properties.getLatency().getDecay());
+        Admission admission = createAdmission(name);
+        state.setAdmission(admission);
+        if (dataSource instanceof AdmissionHikariDataSource) {
+            ((AdmissionHikariDataSource) dataSource).setAdmission(admission);
+        }
+        if (dataSource instanceof HikariDataSource) {
+            try {
+                Timer acquireTimer = Timer.builder("datasource.connection.acquire").tag(TAG, name).publishPercentileHistogram().register(meterRegistry);
+                registered.add(acquireTimer);
+                ((HikariDataSource) dataSource).setMetricsTrackerFactory(new ReplicaMetricsTrackerFactory(state, acquireTimer));
+            } catch (IllegalStateException e) {
+                logger.warn("Failed to install metrics tracker on '{}': {}", name, e.getMessage());
+            }
+        }
+        registered.add(Gauge.builder("replica.latency", state, ReplicaState::getLatencyMillis).tag(TAG, name).baseUnit("milliseconds").register(meterRegistry));
+        registered.add(Gauge.builder("replica.in-flight", state, ReplicaState::getInFlight).tag(TAG, name).register(meterRegistry));
+        registered.add(Gauge.builder("replica.score", state, ReplicaState::getScore).tag(TAG, name).register(meterRegistry));
+        registered.add(Gauge.builder("replica.lag", state, ReplicaState::getLagMillis).tag(TAG, name).baseUnit("milliseconds").register(meterRegistry));
+        registered.add(Gauge.builder("replica.circuit", state, o -> o.getCircuitBreaker().getState().ordinal()).tag(TAG, name).register(meterRegistry));
+        registered.add(Gauge.builder("datasource.admission.waiting", admission, Admission::getWaiting).tag(TAG, name).register(meterRegistry));
+        registered.add(FunctionCounter.builder("datasource.admission.rejected", admission, Admission::getRejected).tag(TAG, name).register(meterRegistry));
+        registered.add(FunctionCounter.builder("datasource.admission.shed", admission, Admission::getShed).tag(TAG, name).register(meterRegistry));
+        meters.put(name, registered);
+    }
+
+    /**
+     * Removes the meters of a data source, must be called when the data source is dropped,
+     * otherwise registering a data source with the same name would return the stale meters bound to the old state.
+     *
+     * @param name the name of the data source.
+     */
+    public void unregister(String name) {
+        List<Meter> registered = meters.remove(name);
+        if (registered != null) {
+            registered.forEach(meterRegistry::remove);
+        }
+        QueryMetrics.remove(name);
+    }
+
+    private Admission createAdmission(String name) {
+        // 读库与写库使用独立的上限，读库的积压不会占满写库的等待队列
+        int maxWaiting = routingDataSources.getWriteDataSourceNames().contains(name)
+                ? properties.getAdmission().getWriteMaxWaiting()
+                : properties.getAdmission().getReadMaxWaiting();
+        return new Admission(maxWaiting > 0 ? maxWaiting : Admission.UNLIMITED);
+    }
+
+    /**
+     * Updates the groups and roles of the physical data sources used to tag {@link QueryMetrics},
+     * must be called after the readwrite-splitting rules are altered.
+     */
+    public void refreshRoutes() {
+        Map<String, QueryMetrics.Route> routes = new HashMap<>();
+        for (ReadwriteSplittingDataSourceRule rule : routingDataSources.getRules()) {
+            routes.put(rule.getWriteDataSource(), new QueryMetrics.Route(rule.getName(), "write"));
+            for (String readDataSourceName : rule.getReadDataSourceNames()) {
+                routes.put(readDataSourceName, new QueryMetrics.Route(rule.getName(), "read"));
+            }
+        }
+        QueryMetrics.setRoutes(routes);
+    }
+}
@@ -0,0 +1,47 @@
+package io.leego.example.routing;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 采集 Hikari 连接池中连接的借用与归还，更新读库的进行中查询数及查询延迟。
+ * <p>
+ * 未开启事务的读取每条语句独占一个连接，因此连接的占用时间即为查询延迟。
+ * 获取连接超时视为一次失败，计入读库的熔断器。获取连接的等待时间记录在 <code>datasource.connection.acquire</code> 中。
+ *
+ * @author Leego Yih
+ */
+public class ReplicaMetricsTrackerFactory implements MetricsTrackerFactory {
+    private final ReplicaState state;
+    private final Timer acquireTimer;
+
+    public ReplicaMetricsTrackerFactory(ReplicaState state, Timer acquireTimer) {
+        this.state = state;
+        this.acquireTimer = acquireTimer;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                state.onAcquire();
+                acquireTimer.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                state.onRelease(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                state.getCircuitBreaker().onFailure();
+            }
+        };
+    }
+}
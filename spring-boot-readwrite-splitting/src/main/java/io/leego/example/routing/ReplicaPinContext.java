@@ -0,0 +1,54 @@
+package io.leego.example.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读库绑定上下文。
+ * <p>
+ * 开启后，当前线程在每个逻辑数据源上的第一条查询按负载均衡算法选择读库，之后的查询均路由至该读库。
+ *
+ * @author Leego Yih
+ * @see io.leego.example.annotation.RouteToReplica
+ */
+public final class ReplicaPinContext {
+    private static final ThreadLocal<Map<String, String>> PINS = new ThreadLocal<>();
+
+    private ReplicaPinContext() {
+    }
+
+    public static void begin() {
+        PINS.set(new HashMap<>());
+    }
+
+    public static void end() {
+        PINS.remove();
+    }
+
+    public static boolean isActive() {
+        return PINS.get() != null;
+    }
+
+    /**
+     * Returns the data source pinned for the logic data source, or <code>null</code> if not pinned yet.
+     *
+     * @param name the logic data source name.
+     */
+    public static String getPinned(String name) {
+        Map<String, String> pins = PINS.get();
+        return pins == null ? null : pins.get(name);
+    }
+
+    /**
+     * Pins the data source for the logic data source.
+     *
+     * @param name           the logic data source name.
+     * @param dataSourceName the pinned data source name.
+     */
+    public static void pin(String name, String dataSourceName) {
+        Map<String, String> pins = PINS.get();
+        if (pins != null) {
+            pins.put(name, dataSourceName);
+        }
+    }
+}
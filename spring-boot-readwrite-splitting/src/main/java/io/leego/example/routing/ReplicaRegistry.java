@@ -0,0 +1,322 @@
+package io.leego.example.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.config.ReadWriteSplittingProperties;
+import org.apache.shardingsphere.infra.config.RuleConfiguration;
+import org.apache.shardingsphere.infra.datasource.props.DataSourceProperties;
+import org.apache.shardingsphere.readwritesplitting.api.ReadwriteSplittingRuleConfiguration;
+import org.apache.shardingsphere.readwritesplitting.api.rule.ReadwriteSplittingDataSourceRuleConfiguration;
+import org.apache.shardingsphere.readwritesplitting.algorithm.config.AlgorithmProvidedReadwriteSplittingRuleConfiguration;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingDataSourceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 运行时注册与下线读库，无需重启服务。
+ * <p>
+ * 注册读库时，先创建连接池并预热连接，再将其加入读写分离规则，使其开始承接读请求；
+ * 下线读库时，先将其移出读写分离规则，等待进行中的查询完成后再关闭连接池。
+ * 修改规则不会影响其他数据源的连接池。
+ * <p>
+ * 只允许注册 <code>readwrite-splitting.registry.allowed-hosts</code> 中的主机（未配置时为已配置的数据源所在的主机），
+ * 连接串不允许携带连接参数，新读库沿用所在分组已有读库（没有时为写库）的连接参数与连接池配置。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class ReplicaRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRegistry.class);
+    private static final String WRITE_DATA_SOURCE_NAME = "write-data-source-name";
+    private static final String READ_DATA_SOURCE_NAMES = "read-data-source-names";
+    private static final String DEFAULT_PORT = "3306";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]+");
+    /** 注册的读库不允许携带任何连接参数，例如 <code>allowLoadLocalInfile</code>、<code>autoDeserialize</code> */
+    private static final Pattern JDBC_URL = Pattern.compile("jdbc:mysql://([A-Za-z0-9.-]+)(?::(\\d{1,5}))?/([A-Za-z0-9_$]+)");
+    private static final Pattern CONFIGURED_JDBC_URL = Pattern.compile("jdbc:mysql://([A-Za-z0-9.-]+)(?::(\\d{1,5}))?/.*");
+    private final RoutingDataSources routingDataSources;
+    private final ReplicaMetrics replicaMetrics;
+    private final ObjectProvider<ReplicaHealthChecker> replicaHealthChecker;
+    private final ReadWriteSplittingProperties.Registry properties;
+
+    public ReplicaRegistry(RoutingDataSources routingDataSources, ReplicaMetrics replicaMetrics,
+                           ObjectProvider<ReplicaHealthChecker> replicaHealthChecker, ReadWriteSplittingProperties properties) {
+        this.routingDataSources = routingDataSources;
+        this.replicaMetrics = replicaMetrics;
+        this.replicaHealthChecker = replicaHealthChecker;
+        this.properties = properties.getRegistry();
+    }
+
+    /**
+     * Creates and warms up the connection pool of a new replica, then adds it to the readwrite-splitting rule.
+     * <p>
+     * The replica must be on an allowed host, and its JDBC URL must not carry any driver properties.
+     * The driver properties and pool settings (e.g. <code>connection-timeout</code>, <code>maximum-pool-size</code>)
+     * are copied from an existing read data source of the rule, or from its write data source if it has none.
+     *
+     * @param group    the logic data source name of the readwrite-splitting rule.
+     * @param name     the name of the new read data source.
+     * @param jdbcUrl  the JDBC URL of the new read data source, e.g. <code>jdbc:mysql://host:3306/database</code>.
+     * @param username the username.
+     * @param password the password.
+     * @throws IllegalArgumentException if the name, the group or the JDBC URL is not valid.
+     */
+    public synchronized void register(String group, String name, String jdbcUrl, String username, String password) throws SQLException {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Data source name must match " + NAME.pattern());
+        }
+        if (routingDataSources.getDataSourceMap().containsKey(name)) {
+            throw new IllegalArgumentException("Data source '" + name + "' already exists");
+        }
+        if (group == null) {
+            throw new IllegalArgumentException("Readwrite-splitting data source must be specified");
+        }
+        ReadwriteSplittingDataSourceRule rule = routingDataSources.findRule(group)
+                .orElseThrow(() -> new IllegalArgumentException("Readwrite-splitting data source '" + group + "' does not exist"));
+        HikariDataSource template = getTemplate(rule);
+        Map<String, Object> dataSourceProps = getPoolProperties(template);
+        dataSourceProps.put("poolName", name);
+        dataSourceProps.put("jdbcUrl", getJdbcUrl(jdbcUrl, template));
+        dataSourceProps.put("username", username);
+        dataSourceProps.put("password", password);
+        String dataSourceClassName = template != null ? template.getClass().getName() : AdmissionHikariDataSource.class.getName();
+        String schemaName = routingDataSources.getSchemaName();
+        routingDataSources.getContextManager().addResource(schemaName,
+                Collections.singletonMap(name, new DataSourceProperties(dataSourceClassName, dataSourceProps)));
+        DataSource dataSource = routingDataSources.getDataSource(name);
+        try {
+            replicaMetrics.register(name, dataSource);
+            warmUp(name, dataSource);
+            replicaHealthChecker.ifAvailable(checker -> checker.register(name));
+            alterReadDataSourceNames(rule.getName(), names -> {
+                names.add(name);
+                return names;
+            });
+        } catch (SQLException | RuntimeException e) {
+            release(name, dataSource);
+            throw e;
+        }
+        replicaMetrics.refreshRoutes();
+        logger.info("Replica '{}' registered", name);
+    }
+
+    /**
+     * Removes a replica from the readwrite-splitting rule, waits for in-flight queries, then closes its connection pool.
+     *
+     * @param name the name of the read data source.
+     */
+    public synchronized void drain(String name) throws InterruptedException {
+        ReadwriteSplittingDataSourceRule rule = routingDataSources.findRuleByDataSourceName(name)
+                .filter(o -> o.getReadDataSourceNames().contains(name))
+                .orElseThrow(() -> new IllegalArgumentException("Read data source '" + name + "' does not exist"));
+        if (rule.getReadDataSourceNames().size() == 1) {
+            throw new IllegalStateException("Cannot drain the last read data source '" + name + "' of '" + rule.getName() + "'");
+        }
+        alterReadDataSourceNames(rule.getName(), names -> {
+            names.remove(name);
+            return names;
+        });
+        replicaMetrics.refreshRoutes();
+        ReplicaState state = ReplicaStates.get(name);
+        long deadline = System.nanoTime() + properties.getDrainTimeout().toNanos();
+        while (state.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        if (state.getInFlight() > 0) {
+            logger.warn("Replica '{}' still has {} in-flight queries after {}, closing anyway", name, state.getInFlight(), properties.getDrainTimeout());
+        }
+        release(name, routingDataSources.getDataSource(name));
+        logger.info("Replica '{}' drained", name);
+    }
+
+    /**
+     * Drops the resource, closes the connection pool and removes the state and meters of a replica.
+     */
+    private void release(String name, DataSource dataSource) {
+        replicaHealthChecker.ifAvailable(checker -> checker.unregister(name));
+        routingDataSources.getContextManager().dropResource(routingDataSources.getSchemaName(), Collections.singleton(name));
+        if (dataSource instanceof HikariDataSource && !((HikariDataSource) dataSource).isClosed()) {
+            ((HikariDataSource) dataSource).close();
+        }
+        replicaMetrics.unregister(name);
+        ReplicaStates.remove(name);
+    }
+
+    /**
+     * Returns the connection pool to copy the settings of a new replica from,
+     * i.e. the first read data source of the rule, or its write data source if it has none.
+     */
+    private HikariDataSource getTemplate(ReadwriteSplittingDataSourceRule rule) {
+        List<String> names = new ArrayList<>(rule.getReadDataSourceNames());
+        names.add(rule.getWriteDataSource());
+        for (String name : names) {
+            DataSource dataSource = routingDataSources.getDataSource(name);
+            if (dataSource instanceof HikariDataSource) {
+                return (HikariDataSource) dataSource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the pool settings of the template, the connection settings are not included.
+     */
+    private Map<String, Object> getPoolProperties(HikariDataSource template) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        if (template == null) {
+            return props;
+        }
+        props.put("driverClassName", template.getDriverClassName());
+        props.put("connectionTimeout", template.getConnectionTimeout());
+        props.put("validationTimeout", template.getValidationTimeout());
+        props.put("idleTimeout", template.getIdleTimeout());
+        props.put("maxLifetime", template.getMaxLifetime());
+        props.put("keepaliveTime", template.getKeepaliveTime());
+        props.put("maximumPoolSize", template.getMaximumPoolSize());
+        props.put("minimumIdle", template.getMinimumIdle());
+        props.put("leakDetectionThreshold", template.getLeakDetectionThreshold());
+        props.put("connectionTestQuery", template.getConnectionTestQuery());
+        props.put("connectionInitSql", template.getConnectionInitSql());
+        props.put("readOnly", template.isReadOnly());
+        props.values().removeIf(Objects::isNull);
+        return props;
+    }
+
+    /**
+     * Returns the JDBC URL of a new replica with the driver properties of the template.
+     *
+     * @throws IllegalArgumentException if the JDBC URL carries driver properties or the host is not allowed.
+     */
+    private String getJdbcUrl(String jdbcUrl, HikariDataSource template) {
+        Matcher matcher = jdbcUrl == null ? null : JDBC_URL.matcher(jdbcUrl);
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("JDBC URL must be jdbc:mysql://host[:port]/database without properties");
+        }
+        String host = matcher.group(1);
+        String port = matcher.group(2) == null ? DEFAULT_PORT : matcher.group(2);
+        if (!isAllowedHost(host, port)) {
+            throw new IllegalArgumentException("Host '" + host + ":" + port + "' is not allowed");
+        }
+        String templateJdbcUrl = template == null ? null : template.getJdbcUrl();
+        int index = templateJdbcUrl == null ? -1 : templateJdbcUrl.indexOf('?');
+        if (index >= 0) {
+            return jdbcUrl + templateJdbcUrl.substring(index);
+        }
+        return jdbcUrl;
+    }
+
+    private boolean isAllowedHost(String host, String port) {
+        Collection<String> allowedHosts = properties.getAllowedHosts();
+        if (allowedHosts.isEmpty()) {
+            allowedHosts = getConfiguredHosts();
+        }
+        for (String allowedHost : allowedHosts) {
+            if (allowedHost.equalsIgnoreCase(host) || allowedHost.equalsIgnoreCase(host + ":" + port)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the <code>host:port</code> of the configured data sources.
+     */
+    private Collection<String> getConfiguredHosts() {
+        Set<String> hosts = new HashSet<>();
+        for (DataSource dataSource : routingDataSources.getDataSourceMap().values()) {
+            if (!(dataSource instanceof HikariDataSource) || ((HikariDataSource) dataSource).getJdbcUrl() == null) {
+                continue;
+            }
+            Matcher matcher = CONFIGURED_JDBC_URL.matcher(((HikariDataSource) dataSource).getJdbcUrl());
+            if (matcher.matches()) {
+                hosts.add(matcher.group(1) + ":" + (matcher.group(2) == null ? DEFAULT_PORT : matcher.group(2)));
+            }
+        }
+        return hosts;
+    }
+
+    private void warmUp(String name, DataSource dataSource) throws SQLException {
+        List<Connection> connections = new ArrayList<>(properties.getWarmupConnections());
+        try {
+            for (int i = 0; i < properties.getWarmupConnections(); i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                if (!connection.isValid((int) Math.max(1, properties.getWarmupTimeout().getSeconds()))) {
+                    throw new SQLException("Connection to '" + name + "' is not valid");
+                }
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Alters the read data source names of the static readwrite-splitting rules.
+     *
+     * @param group    the logic data source name of the rule to alter, or <code>null</code> for all rules.
+     * @param operator the operator applied to the read data source names.
+     */
+    private void alterReadDataSourceNames(String group, UnaryOperator<List<String>> operator) {
+        String schemaName = routingDataSources.getSchemaName();
+        Collection<RuleConfiguration> ruleConfigs = new ArrayList<>(
+                routingDataSources.getContextManager().getMetaDataContexts().getMetaData(schemaName).getRuleMetaData().getConfigurations());
+        List<RuleConfiguration> altered = new ArrayList<>(ruleConfigs.size());
+        for (RuleConfiguration ruleConfig : ruleConfigs) {
+            if (ruleConfig instanceof AlgorithmProvidedReadwriteSplittingRuleConfiguration) {
+                AlgorithmProvidedReadwriteSplittingRuleConfiguration config = (AlgorithmProvidedReadwriteSplittingRuleConfiguration) ruleConfig;
+                altered.add(new AlgorithmProvidedReadwriteSplittingRuleConfiguration(
+                        alter(config.getDataSources(), group, operator), config.getLoadBalanceAlgorithms()));
+            } else if (ruleConfig instanceof ReadwriteSplittingRuleConfiguration) {
+                ReadwriteSplittingRuleConfiguration config = (ReadwriteSplittingRuleConfiguration) ruleConfig;
+                altered.add(new ReadwriteSplittingRuleConfiguration(
+                        alter(config.getDataSources(), group, operator), config.getLoadBalancers()));
+            } else {
+                altered.add(ruleConfig);
+            }
+        }
+        routingDataSources.getContextManager().alterRuleConfiguration(schemaName, altered);
+    }
+
+    private Collection<ReadwriteSplittingDataSourceRuleConfiguration> alter(
+            Collection<ReadwriteSplittingDataSourceRuleConfiguration> dataSources, String group, UnaryOperator<List<String>> operator) {
+        Map<String, ReadwriteSplittingDataSourceRuleConfiguration> result = new LinkedHashMap<>();
+        for (ReadwriteSplittingDataSourceRuleConfiguration dataSource : dataSources) {
+            if ((group != null && !group.equals(dataSource.getName())) || dataSource.getProps().getProperty(WRITE_DATA_SOURCE_NAME) == null) {
+                result.put(dataSource.getName(), dataSource);
+                continue;
+            }
+            Properties props = new Properties();
+            props.putAll(dataSource.getProps());
+            List<String> names = Arrays.stream(props.getProperty(READ_DATA_SOURCE_NAMES, "").split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .collect(Collectors.toCollection(ArrayList::new));
+            props.setProperty(READ_DATA_SOURCE_NAMES, String.join(",", operator.apply(names)));
+            result.put(dataSource.getName(), new ReadwriteSplittingDataSourceRuleConfiguration(
+                    dataSource.getName(), dataSource.getType(), props, dataSource.getLoadBalancerName()));
+        }
+        return result.values();
+    }
+}
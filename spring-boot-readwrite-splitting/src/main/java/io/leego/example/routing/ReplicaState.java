@@ -0,0 +1,128 @@
+package io.leego.example.routing;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读库运行时状态，由 Spring 组件负责采集，由 ShardingSphere 加载的负载均衡算法读取。
+ *
+ * @author Leego Yih
+ */
+public class ReplicaState {
+    /** 复制延迟未知（尚未探测或探测失败） */
+    public static final long UNKNOWN_LAG = -1L;
+    public static final Duration DEFAULT_LATENCY_DECAY = Duration.ofSeconds(10);
+    private final String name;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lagMillis = UNKNOWN_LAG;
+    private volatile long heartbeat;
+    private volatile Ewma latency = new Ewma(DEFAULT_LATENCY_DECAY.toNanos());
+    private volatile CircuitBreaker circuitBreaker = CircuitBreaker.alwaysClosed();
+    private volatile Admission admission = Admission.unlimited();
+
+    public ReplicaState(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public void setLagMillis(long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    public long getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(long heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public void setLatencyDecay(Duration decay) {
+        this.latency = new Ewma(decay.toNanos());
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Returns <code>true</code> if the replica is healthy, i.e. its circuit breaker is closed.
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isClosed();
+    }
+
+    /**
+     * Returns the moving average of query latency in milliseconds.
+     */
+    public double getLatencyMillis() {
+        return latency.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void onAcquire() {
+        inFlight.incrementAndGet();
+    }
+
+    public void onRelease(long usageMillis) {
+        if (inFlight.decrementAndGet() < 0) {
+            inFlight.set(0);
+        }
+        latency.update(usageMillis);
+    }
+
+    /**
+     * Returns the load score, lower is better.
+     * <p>
+     * 延迟加 1 毫秒，避免延迟为 0 时忽略进行中的查询数。
+     */
+    public double getScore() {
+        return (getLatencyMillis() + 1) * (getInFlight() + 1);
+    }
+
+    /**
+     * Returns <code>true</code> if the replication lag is known and does not exceed the given limit.
+     *
+     * @param maxLagMillis the maximum tolerable lag in milliseconds.
+     */
+    public boolean isLagWithin(long maxLagMillis) {
+        long lag = this.lagMillis;
+        return lag != UNKNOWN_LAG && lag <= maxLagMillis;
+    }
+
+    /**
+     * Returns <code>true</code> if the replica has applied every write committed on the master
+     * before the given consistency token.
+     * <p>
+     * The heartbeat must be strictly later than the token: a heartbeat written in the same millisecond
+     * may have been committed before the write that issued the token.
+     *
+     * @param token the consistency token, <code>0</code> means no consistency requirement.
+     * @see ConsistencyContext
+     */
+    public boolean isCaughtUpTo(long token) {
+        return token <= 0 || heartbeat > token;
+    }
+}
@@ -0,0 +1,32 @@
+package io.leego.example.routing;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 读库状态注册表。
+ * <p>
+ * ShardingSphere 通过 SPI 自行实例化负载均衡算法，无法注入 Spring Bean，因此以静态注册表共享读库状态。
+ *
+ * @author Leego Yih
+ */
+public final class ReplicaStates {
+    private static final ConcurrentMap<String, ReplicaState> STATES = new ConcurrentHashMap<>();
+
+    private ReplicaStates() {
+    }
+
+    public static ReplicaState get(String name) {
+        return STATES.computeIfAbsent(name, ReplicaState::new);
+    }
+
+    public static Collection<ReplicaState> getAll() {
+        return Collections.unmodifiableCollection(STATES.values());
+    }
+
+    public static void remove(String name) {
+        STATES.remove(name);
+    }
+}
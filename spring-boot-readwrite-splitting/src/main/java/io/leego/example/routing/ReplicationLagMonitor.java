@@ -0,0 +1,113 @@
+package io.leego.example.routing;
+
+import io.leego.example.config.ReadWriteSplittingProperties;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingDataSourceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过心跳表采集读库的复制延迟。
+ * <p>
+ * 每个周期先读取各读库的心跳时间戳，再向写库写入新的心跳时间戳。
+ * 若读库已读到上一周期写入的心跳则视为无延迟，否则延迟为当前时间与读库心跳时间戳之差。
+ *
+ * @author Leego Yih
+ */
+@Component
+@ConditionalOnProperty(prefix = "readwrite-splitting.heartbeat", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReplicationLagMonitor implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+    private static final int HEARTBEAT_ID = 1;
+    private final RoutingDataSources routingDataSources;
+    private final ReadWriteSplittingProperties.Heartbeat properties;
+    private final Map<String, Long> lastHeartbeats = new ConcurrentHashMap<>();
+    private final String selectSql;
+    private final String updateSql;
+    private final String insertSql;
+    private ScheduledExecutorService executor;
+
+    public ReplicationLagMonitor(RoutingDataSources routingDataSources, ReadWriteSplittingProperties properties) {
+        this.routingDataSources = routingDataSources;
+        this.properties = properties.getHeartbeat();
+        String table = this.properties.getTable();
+        this.selectSql = "select ts from " + table + " where id = ?";
+        this.updateSql = "update " + table + " set ts = ? where id = ?";
+        this.insertSql = "insert into " + table + " (ts, id) values (?, ?)";
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replication-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::heartbeat, 0, properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    void heartbeat() {
+        try {
+            for (ReadwriteSplittingDataSourceRule rule : routingDataSources.getRules()) {
+                String writeDataSourceName = rule.getWriteDataSource();
+                Long lastHeartbeat = lastHeartbeats.get(writeDataSourceName);
+                for (String readDataSourceName : rule.getReadDataSourceNames()) {
+                    probe(ReplicaStates.get(readDataSourceName), lastHeartbeat);
+                }
+                writeHeartbeat(writeDataSourceName);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to collect replication lag", e);
+        }
+    }
+
+    private void probe(ReplicaState state, Long lastHeartbeat) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(routingDataSources.getDataSource(state.getName()));
+            List<Long> timestamps = jdbcTemplate.queryForList(selectSql, Long.class, HEARTBEAT_ID);
+            if (timestamps.isEmpty() || timestamps.get(0) == null) {
+                state.setLagMillis(ReplicaState.UNKNOWN_LAG);
+                return;
+            }
+            long timestamp = timestamps.get(0);
+            state.setHeartbeat(timestamp);
+            if (lastHeartbeat != null && timestamp >= lastHeartbeat) {
+                state.setLagMillis(0L);
+            } else {
+                state.setLagMillis(Math.max(0L, System.currentTimeMillis() - timestamp));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to probe replication lag of '{}': {}", state.getName(), e.getMessage());
+            state.setLagMillis(ReplicaState.UNKNOWN_LAG);
+        }
+    }
+
+    private void writeHeartbeat(String writeDataSourceName) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(routingDataSources.getDataSource(writeDataSourceName));
+            long timestamp = System.currentTimeMillis();
+            if (jdbcTemplate.update(updateSql, timestamp, HEARTBEAT_ID) == 0) {
+                jdbcTemplate.update(insertSql, timestamp, HEARTBEAT_ID);
+            }
+            lastHeartbeats.put(writeDataSourceName, timestamp);
+        } catch (Exception e) {
+            logger.warn("Failed to write heartbeat to '{}': {}", writeDataSourceName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.leego.example.routing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于复制延迟的读库负载均衡算法。
+ * <p>
+ * 在复制延迟不超过 <code>max-lag-millis</code>（默认 1000 毫秒）的读库之间轮询，若所有读库均超过限制（或延迟未知）则路由至写库。
+ * 复制延迟由 {@link ReplicationLagMonitor} 通过心跳表采集。
+ * 若当前请求携带一致性令牌（见 {@link ConsistencyContext}），则只选择已追上该令牌的读库。
+ *
+ * @author Leego Yih
+ */
+public class ReplicationLagReadQueryLoadBalanceAlgorithm extends AbstractReplicaReadQueryLoadBalanceAlgorithm {
+    public static final String TYPE = "REPLICATION_LAG";
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    protected long getDefaultMaxLagMillis() {
+        return 1000L;
+    }
+
+    @Override
+    protected ReplicaState select(String name, List<ReplicaState> candidates) {
+        return candidates.get(Math.abs(count.getAndIncrement() % candidates.size()));
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+}
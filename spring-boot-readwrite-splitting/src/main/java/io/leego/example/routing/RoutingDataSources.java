@@ -0,0 +1,109 @@
+package io.leego.example.routing;
+
+import org.apache.shardingsphere.driver.jdbc.core.datasource.ShardingSphereDataSource;
+import org.apache.shardingsphere.infra.metadata.ShardingSphereMetaData;
+import org.apache.shardingsphere.mode.manager.ContextManager;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingDataSourceRule;
+import org.apache.shardingsphere.readwritesplitting.rule.ReadwriteSplittingRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 访问 ShardingSphere 管理的物理数据源及读写分离规则。
+ *
+ * @author Leego Yih
+ */
+@Component
+public class RoutingDataSources {
+    private final ShardingSphereDataSource dataSource;
+    private final String schemaName;
+
+    public RoutingDataSources(DataSource dataSource, @Value("${spring.shardingsphere.schema.name:logic_db}") String schemaName) {
+        this.dataSource = (ShardingSphereDataSource) dataSource;
+        this.schemaName = schemaName;
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    public ContextManager getContextManager() {
+        return dataSource.getContextManager();
+    }
+
+    public Map<String, DataSource> getDataSourceMap() {
+        return getContextManager().getDataSourceMap(schemaName);
+    }
+
+    public DataSource getDataSource(String name) {
+        return getDataSourceMap().get(name);
+    }
+
+    public Collection<ReadwriteSplittingDataSourceRule> getRules() {
+        ShardingSphereMetaData metaData = getContextManager().getMetaDataContexts().getMetaData(schemaName);
+        Optional<ReadwriteSplittingRule> rule = metaData.getRuleMetaData().findSingleRule(ReadwriteSplittingRule.class);
+        if (!rule.isPresent()) {
+            return Collections.emptyList();
+        }
+        // 规则以读写分离数据源的名称为键
+        List<ReadwriteSplittingDataSourceRule> rules = new ArrayList<>();
+        for (String name : rule.get().getDataSourceMapper().keySet()) {
+            rule.get().findDataSourceRule(name).ifPresent(rules::add);
+        }
+        return rules;
+    }
+
+    /**
+     * Returns the readwrite-splitting rule that writes to or reads from the given data source.
+     *
+     * @param name the name of the physical data source.
+     */
+    public Optional<ReadwriteSplittingDataSourceRule> findRuleByDataSourceName(String name) {
+        for (ReadwriteSplittingDataSourceRule rule : getRules()) {
+            if (name.equals(rule.getWriteDataSource()) || rule.getReadDataSourceNames().contains(name)) {
+                return Optional.of(rule);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the readwrite-splitting rule with the given logic data source name.
+     *
+     * @param group the logic data source name of the rule.
+     */
+    public Optional<ReadwriteSplittingDataSourceRule> findRule(String group) {
+        for (ReadwriteSplittingDataSourceRule rule : getRules()) {
+            if (group.equals(rule.getName())) {
+                return Optional.of(rule);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Set<String> getWriteDataSourceNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (ReadwriteSplittingDataSourceRule rule : getRules()) {
+            names.add(rule.getWriteDataSource());
+        }
+        return names;
+    }
+
+    public List<String> getReadDataSourceNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (ReadwriteSplittingDataSourceRule rule : getRules()) {
+            names.addAll(rule.getReadDataSourceNames());
+        }
+        return new ArrayList<>(names);
+    }
+}
@@ -0,0 +1,79 @@
+package io.leego.example.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingAlgorithm;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 基于分片基因的复合分片算法。
+ * <p>
+ * 分片列为主键列与分片键列（由 <code>id-column</code> 与 <code>sharding-key-column</code> 配置，默认为 <code>id</code> 与 <code>username</code>）。
+ * 条件中包含任一列的等值或 <code>IN</code> 条件时，根据基因路由至 <code>gene % 分片数</code> 对应的分片，
+ * 否则路由至所有分片。分片序号即 <code>actual-data-nodes</code> 中数据源的顺序，因此已有数据时不能调整该顺序。
+ *
+ * @author Leego Yih
+ * @see ShardingGenes
+ */
+@Getter
+@Setter
+public class GeneShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
+    public static final String TYPE = "GENE";
+    public static final String ID_COLUMN = "id-column";
+    public static final String SHARDING_KEY_COLUMN = "sharding-key-column";
+    private Properties props = new Properties();
+    private String idColumn;
+    private String shardingKeyColumn;
+
+    @Override
+    public void init() {
+        idColumn = props.getProperty(ID_COLUMN, "id");
+        shardingKeyColumn = props.getProperty(SHARDING_KEY_COLUMN, "username");
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames, ComplexKeysShardingValue<Comparable<?>> shardingValue) {
+        if (availableTargetNames.size() > ShardingGenes.MAX_SHARDS) {
+            throw new IllegalStateException("The number of shards must not exceed " + ShardingGenes.MAX_SHARDS);
+        }
+        Map<String, Collection<Comparable<?>>> values = shardingValue.getColumnNameAndShardingValuesMap();
+        Collection<Comparable<?>> keys = get(values, shardingKeyColumn);
+        Collection<Comparable<?>> ids = get(values, idColumn);
+        List<String> targets = new ArrayList<>(availableTargetNames);
+        Set<String> result = new LinkedHashSet<>();
+        if (keys != null) {
+            for (Comparable<?> key : keys) {
+                result.add(targets.get(ShardingGenes.of(key.toString()) % targets.size()));
+            }
+        } else if (ids != null) {
+            for (Comparable<?> id : ids) {
+                result.add(targets.get(ShardingGenes.of(((Number) id).longValue()) % targets.size()));
+            }
+        } else {
+            return availableTargetNames;
+        }
+        return result;
+    }
+
+    private Collection<Comparable<?>> get(Map<String, Collection<Comparable<?>>> values, String column) {
+        for (Map.Entry<String, Collection<Comparable<?>>> entry : values.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,16 @@
+package io.leego.example.sharding;
+
+/**
+ * 可分片的实体，其主键中嵌入分片键的基因，使按主键与按分片键的查询均只路由至一个分片。
+ *
+ * @author Leego Yih
+ * @see ShardingGenes
+ */
+public interface Shardable {
+
+    /**
+     * Returns the sharding key, e.g. the username of a user.
+     */
+    String getShardingKey();
+
+}
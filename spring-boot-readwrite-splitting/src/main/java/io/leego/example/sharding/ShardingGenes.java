@@ -0,0 +1,45 @@
+package io.leego.example.sharding;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * 分片基因。
+ * <p>
+ * 基因为分片键哈希值的低 {@link #GENE_BITS} 位，生成主键时嵌入主键的低位，
+ * 因此无论按主键还是按分片键查询，都能得到相同的基因，进而定位到同一个分片。
+ * 分片数不能超过 <code>2^GENE_BITS</code>。
+ * <p>
+ * 分片键按 MySQL 8.0 的默认排序规则（<code>utf8mb4_0900_ai_ci</code>，不区分大小写与重音）归一化后再计算哈希值，
+ * 使数据库认为相等的分片键（例如 <code>Leego</code> 与 <code>leego</code>）总是落在同一个分片，唯一约束才能在分片内生效。
+ *
+ * @author Leego Yih
+ */
+public final class ShardingGenes {
+    public static final int GENE_BITS = 6;
+    public static final int MAX_SHARDS = 1 << GENE_BITS;
+    private static final int GENE_MASK = MAX_SHARDS - 1;
+
+    private ShardingGenes() {
+    }
+
+    public static int of(String shardingKey) {
+        int h = normalize(shardingKey).hashCode();
+        return (h ^ (h >>> 16)) & GENE_MASK;
+    }
+
+    public static int of(long id) {
+        return (int) (id & GENE_MASK);
+    }
+
+    /**
+     * Returns the sharding key normalized by the collation, keys that the database considers equal have the same normalized key.
+     *
+     * @param shardingKey the sharding key.
+     */
+    public static String normalize(String shardingKey) {
+        return Normalizer.normalize(shardingKey, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -5,6 +5,7 @@ import io.leego.example.pojo.dto.UserCreateDTO;
 import io.leego.example.pojo.dto.UserUpdateDTO;
 import io.leego.example.pojo.vo.UserVO;
 import io.leego.example.repository.UserRepository;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -35,11 +36,13 @@ public class SoftDeleteController {
 
     @PostMapping("users")
     public UserVO createUser(@Validated @RequestBody UserCreateDTO dto) {
-        if (userRepository.existsByUsername(dto.getUsername())) {
+        User user = new User(dto.getUsername(), dto.getPassword());
+        try {
+            // 依赖唯一索引判断用户名是否重复，无需在写入前查询
+            userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
             throw new RuntimeException("用户已存在");
         }
-        User user = new User(dto.getUsername(), dto.getPassword());
-        userRepository.save(user);
         return toVO(user);
     }
 
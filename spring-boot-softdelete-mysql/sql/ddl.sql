@@ -3,12 +3,22 @@ use test;
 
 create table user
 (
-    id           bigint primary key auto_increment not null,
-    username     varchar(20)                       not null,
-    password     varchar(40)                       not null,
-    deleted      bigint default 0                  not null comment 'deleted 0:no others:yes',
-    created_time datetime                          not null,
-    updated_time datetime                          null,
-    deleted_time datetime                          null,
-    constraint uk_user_username unique (username, deleted)
+    id           bigint primary key not null,
+    username     varchar(20)        not null,
+    password     varchar(40)        not null,
+    deleted      bigint default 0   not null comment 'deleted 0:no others:yes',
+    created_time datetime           not null,
+    updated_time datetime           null,
+    deleted_time datetime           null,
+    constraint uk_user_username unique (username, deleted),
+    index idx_user_deleted_time (deleted_time)
+);
+
+create table user_archive like user;
+
+-- hibernate.id.generator=pooled 时使用
+create table id_generator
+(
+    sequence_name varchar(255) primary key not null,
+    next_val      bigint                   not null
 );
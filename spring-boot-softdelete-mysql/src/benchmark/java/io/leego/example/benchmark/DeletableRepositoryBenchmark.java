@@ -0,0 +1,145 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.entity.User;
+import io.leego.example.repository.SoftDeleteJpaRepository;
+import io.leego.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比基于 <code>@Query</code> 与 SpEL 的软删除语句（修改前的 <code>DeletableRepository</code>）
+ * 和 {@link SoftDeleteJpaRepository} 的单次调用开销与内存分配。
+ * <p>
+ * 软删除一个不存在的主键、查询最大主键之后的主键，使数据库几乎不做工作，结果主要反映 Repository 本身的开销。
+ * 两种实现都在同一个 {@link TransactionTemplate} 中调用，事务的开销相同。
+ * 默认使用内存数据库 H2，可通过 <code>-Dbenchmark.jdbc-url</code>、<code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code>
+ * 指向已执行 <code>sql/ddl.sql</code> 的 MySQL。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.DeletableRepositoryBenchmark</code>，
+ * 内存分配见结果中的 <code>gc.alloc.rate.norm</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class DeletableRepositoryBenchmark {
+    private static final String DDL = "create table if not exists user (id bigint primary key auto_increment not null, "
+            + "username varchar(20) not null, password varchar(40) not null, deleted bigint default 0 not null, "
+            + "created_time datetime not null, updated_time datetime null, deleted_time datetime null)";
+    private static final Pageable PAGEABLE = PageRequest.of(0, 100);
+
+    public enum Target {
+        ANNOTATED, COMPILED
+    }
+
+    /**
+     * 修改前的 <code>DeletableRepository</code> 中的语句。
+     */
+    public interface AnnotatedUserRepository extends CrudRepository<User, Long> {
+
+        @Modifying
+        @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where id = :id and deleted = 0")
+        int softdeleteById(@org.springframework.data.repository.query.Param("id") Long id);
+
+        @Query("select id from #{#entityName} where deleted = 0 and id > :afterId order by id")
+        List<Long> findUndeletedIdsAfter(@org.springframework.data.repository.query.Param("afterId") Long afterId, Pageable pageable);
+    }
+
+    @Param
+    private Target target;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private AnnotatedUserRepository annotatedUserRepository;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:softdelete;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        dataSource = new HikariDataSource(config);
+        if (url.startsWith("jdbc:h2:")) {
+            new JdbcTemplate(dataSource).execute(DDL);
+        }
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        if (target == Target.ANNOTATED) {
+            annotatedUserRepository = repositoryFactory.getRepository(AnnotatedUserRepository.class);
+        } else {
+            repositoryFactory.setRepositoryBaseClass(SoftDeleteJpaRepository.class);
+            userRepository = repositoryFactory.getRepository(UserRepository.class);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Integer softdeleteById() {
+        return transactionTemplate.execute(status -> target == Target.ANNOTATED
+                ? annotatedUserRepository.softdeleteById(-1L)
+                : userRepository.softdeleteById(-1L));
+    }
+
+    @Benchmark
+    public List<Long> findUndeletedIdsAfter() {
+        return transactionTemplate.execute(status -> target == Target.ANNOTATED
+                ? annotatedUserRepository.findUndeletedIdsAfter(Long.MAX_VALUE, PAGEABLE)
+                : userRepository.findUndeletedIdsAfter(Long.MAX_VALUE, PAGEABLE));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeletableRepositoryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,183 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.entity.BaseEntity;
+import io.leego.example.id.ConfigurableIdGenerator;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 <code>IDENTITY</code> 与 {@link ConfigurableIdGenerator} 的两种策略批量写入的吞吐量。
+ * <p>
+ * 每次调用在一个事务中写入 {@link #BATCH_SIZE} 行，开启 <code>hibernate.jdbc.batch_size</code> 与 <code>hibernate.order_inserts</code>，
+ * <code>IDENTITY</code> 仍会逐条写入。默认使用内存数据库 H2，度量 B+ 树页分裂时应通过 <code>-Dbenchmark.jdbc-url</code>、
+ * <code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code> 指向 MySQL（连接串需包含 <code>rewriteBatchedStatements=true</code>），
+ * 并执行 <code>set global innodb_monitor_enable = 'index_page_splits'</code>，每种策略结束时输出页分裂次数与表的大小。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.IdGeneratorBenchmark</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class IdGeneratorBenchmark {
+    private static final int BATCH_SIZE = 500;
+    private static final String[] DDL = {
+            "create table if not exists benchmark_identity (id bigint primary key auto_increment not null, "
+                    + "payload varchar(40) not null, created_time datetime not null, updated_time datetime null)",
+            "create table if not exists benchmark_generated (id bigint primary key not null, "
+                    + "payload varchar(40) not null, created_time datetime not null, updated_time datetime null)",
+            "create table if not exists " + ConfigurableIdGenerator.TABLE + " (sequence_name varchar(255) primary key not null, next_val bigint not null)"};
+    private static final String PAGE_SPLITS_SQL = "select count from information_schema.innodb_metrics where name = 'index_page_splits'";
+    private static final String TABLE_SIZE_SQL = "select data_length + index_length from information_schema.tables where table_schema = database() and table_name = ?";
+
+    public enum Strategy {
+        IDENTITY, SNOWFLAKE, POOLED
+    }
+
+    @Data
+    @Entity
+    @Table(name = "benchmark_identity")
+    public static class IdentityRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+        private String payload;
+        @Column(nullable = false, updatable = false)
+        private LocalDateTime createdTime;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @Entity
+    @Table(name = "benchmark_generated")
+    public static class GeneratedRow extends BaseEntity<Long> {
+        private String payload;
+    }
+
+    @Param
+    private Strategy strategy;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private boolean mysql;
+    private long pageSplits;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:id;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.batchUpdate(DDL);
+        mysql = url.startsWith("jdbc:mysql:");
+        if (mysql) {
+            pageSplits = getPageSplits();
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.jdbc.batch_size", 50);
+        properties.put("hibernate.order_inserts", true);
+        properties.put(ConfigurableIdGenerator.GENERATOR, strategy == Strategy.POOLED ? ConfigurableIdGenerator.POOLED : ConfigurableIdGenerator.SNOWFLAKE);
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(IdGeneratorBenchmark.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mysql) {
+            String table = strategy == Strategy.IDENTITY ? "benchmark_identity" : "benchmark_generated";
+            List<Long> sizes = jdbcTemplate.queryForList(TABLE_SIZE_SQL, Long.class, table);
+            System.out.printf("%n%s: %d index page splits, table '%s' is %s bytes%n",
+                    strategy, getPageSplits() - pageSplits, table, sizes.isEmpty() ? "?" : sizes.get(0));
+        }
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insert() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                if (strategy == Strategy.IDENTITY) {
+                    IdentityRow row = new IdentityRow();
+                    row.setPayload("payload");
+                    row.setCreatedTime(now);
+                    entityManager.persist(row);
+                } else {
+                    GeneratedRow row = new GeneratedRow();
+                    row.setPayload("payload");
+                    row.setCreatedTime(now);
+                    entityManager.persist(row);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private long getPageSplits() {
+        List<Long> counts = jdbcTemplate.queryForList(PAGE_SPLITS_SQL, Long.class);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
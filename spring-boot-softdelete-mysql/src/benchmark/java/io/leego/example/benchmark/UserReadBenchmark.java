@@ -0,0 +1,121 @@
+package io.leego.example.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.leego.example.entity.User;
+import io.leego.example.pojo.vo.UserVO;
+import io.leego.example.repository.SoftDeleteJpaRepository;
+import io.leego.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 <code>getUser</code> 加载实体后转换为 {@link UserVO}（<code>ENTITY</code>）与直接投影为 {@link UserVO}（<code>PROJECTION</code>）
+ * 的单次请求耗时与内存分配。
+ * <p>
+ * 与接口相同，查询不在事务中执行，每次调用使用新的持久化上下文。
+ * 默认使用内存数据库 H2，可通过 <code>-Dbenchmark.jdbc-url</code>、<code>-Dbenchmark.username</code>、<code>-Dbenchmark.password</code>
+ * 指向已执行 <code>sql/ddl.sql</code> 的 MySQL。
+ * 运行 <code>mvn -Pbenchmark compile exec:exec -Dbenchmark.class=io.leego.example.benchmark.UserReadBenchmark</code>，
+ * 内存分配见结果中的 <code>gc.alloc.rate.norm</code>。
+ *
+ * @author Leego Yih
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class UserReadBenchmark {
+    private static final String DDL = "create table if not exists user (id bigint primary key not null, "
+            + "username varchar(20) not null, password varchar(40) not null, deleted bigint default 0 not null, "
+            + "created_time datetime not null, updated_time datetime null, deleted_time datetime null)";
+    private static final String INSERT_SQL = "insert into user (id, username, password, created_time) values (?, ?, ?, ?)";
+
+    public enum Target {
+        ENTITY, PROJECTION
+    }
+
+    @Param
+    private Target target;
+    private long id;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:read;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("benchmark.username", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (url.startsWith("jdbc:h2:")) {
+            jdbcTemplate.execute(DDL);
+        }
+        id = System.nanoTime() & Long.MAX_VALUE;
+        jdbcTemplate.update(INSERT_SQL, id, Long.toString(id, 36).substring(0, 8), "password", new Timestamp(System.currentTimeMillis()));
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(User.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        repositoryFactory.setRepositoryBaseClass(SoftDeleteJpaRepository.class);
+        userRepository = repositoryFactory.getRepository(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public UserVO getUser() {
+        if (target == Target.PROJECTION) {
+            return userRepository.findVOById(id).orElse(null);
+        }
+        return userRepository.findById(id).map(user -> new UserVO(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getCreatedTime(),
+                user.getUpdatedTime())).orElse(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,29 @@
+package io.leego.example.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 软删除实体时，一并软删除该关联中未删除的子实体；恢复实体时，一并恢复随之删除的子实体。
+ * <p>
+ * 只能标注在 {@link io.leego.example.entity.DeletableEntity} 的一对多关联（<code>@OneToMany(mappedBy = ...)</code>）上，
+ * 子实体也必须继承 {@link io.leego.example.entity.DeletableEntity}，且可以继续标注自己的关联。
+ * 每个子表只执行一条 <code>UPDATE ... JOIN</code> 语句，与父实体在同一个事务中，无需加载子实体，
+ * 语句数与子实体的数量无关。随父实体删除的子实体以 <code>deleted</code> 记录根实体的主键，恢复时据此区分单独删除的子实体。
+ * <pre>
+ * &#64;OneToMany(mappedBy = "user")
+ * &#64;SoftDeleteCascade
+ * private List&lt;Address&gt; addresses;
+ * </pre>
+ *
+ * @author Leego Yih
+ * @see io.leego.example.repository.SoftDeleteCascades
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SoftDeleteCascade {
+}
@@ -0,0 +1,83 @@
+package io.leego.example.archive;
+
+import io.leego.example.entity.DeletableEntity;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DeletableEntity} 对应的表及列名，由 Hibernate 的映射解析。
+ *
+ * @author Leego Yih
+ */
+public class DeletableTable {
+    private final Class<?> entityClass;
+    private final String tableName;
+    private final String idColumn;
+    private final String deletedColumn;
+    private final String deletedTimeColumn;
+
+    public DeletableTable(Class<?> entityClass, String tableName, String idColumn, String deletedColumn, String deletedTimeColumn) {
+        this.entityClass = entityClass;
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.deletedColumn = deletedColumn;
+        this.deletedTimeColumn = deletedTimeColumn;
+    }
+
+    /**
+     * Returns the tables of all {@link DeletableEntity} subclasses.
+     *
+     * @param entityManagerFactory the entity manager factory.
+     */
+    public static List<DeletableTable> resolve(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        List<DeletableTable> tables = new ArrayList<>();
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            Class<?> entityClass = persister.getMappedClass();
+            if (!DeletableEntity.class.isAssignableFrom(entityClass) || !(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            tables.add(of((AbstractEntityPersister) persister));
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the table of a {@link DeletableEntity} subclass.
+     *
+     * @param persister the entity persister.
+     */
+    public static DeletableTable of(AbstractEntityPersister persister) {
+        return new DeletableTable(
+                persister.getMappedClass(),
+                persister.getTableName(),
+                persister.getIdentifierColumnNames()[0],
+                persister.getPropertyColumnNames(DeletableEntity.Fields.deleted)[0],
+                persister.getPropertyColumnNames(DeletableEntity.Fields.deletedTime)[0]);
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+
+    public String getDeletedColumn() {
+        return deletedColumn;
+    }
+
+    public String getDeletedTimeColumn() {
+        return deletedTimeColumn;
+    }
+}
@@ -0,0 +1,148 @@
+package io.leego.example.archive;
+
+import io.leego.example.config.SoftDeleteProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将删除时间早于保留期限（<code>softdelete.archive.retention</code>）的数据从原表移至归档表。
+ * <p>
+ * 归档表为原表名加后缀（默认 <code>_archive</code>），结构与原表相同（如 <code>create table user_archive like user</code>）。
+ * 每批按删除时间顺序选取 <code>batch-size</code> 行，在一个事务中复制至归档表并从原表删除，
+ * 批次之间停顿 <code>pause</code>，每次执行最多 <code>max-batches-per-run</code> 批，以免影响线上流量。
+ * 原表需要删除时间列上的索引（如 <code>key idx_user_deleted_time (deleted_time)</code>），
+ * 否则选取时会扫描并锁定未删除的行。
+ * <ul>
+ * <li><code>softdelete.archived</code>：已归档的行数</li>
+ * <li><code>softdelete.archive.batch</code>：每批归档的耗时</li>
+ * </ul>
+ *
+ * @author Leego Yih
+ */
+@Component
+@ConditionalOnProperty(prefix = "softdelete.archive", name = "enabled", havingValue = "true")
+public class SoftDeleteArchiver implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeleteArchiver.class);
+    private final EntityManagerFactory entityManagerFactory;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SoftDeleteProperties.Archive properties;
+    private final MeterRegistry meterRegistry;
+    private final List<Task> tasks = new ArrayList<>();
+
+    public SoftDeleteArchiver(EntityManagerFactory entityManagerFactory, NamedParameterJdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate, SoftDeleteProperties properties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getArchive();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (DeletableTable table : DeletableTable.resolve(entityManagerFactory)) {
+            tasks.add(new Task(table));
+            logger.info("Archiving soft-deleted rows of '{}' into '{}{}'", table.getTableName(), table.getTableName(), properties.getTableSuffix());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${softdelete.archive.interval:PT10M}", fixedDelayString = "${softdelete.archive.interval:PT10M}")
+    public void archive() {
+        for (Task task : tasks) {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while archiving '{}'", task.table.getTableName());
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to archive '{}'", task.table.getTableName(), e);
+            }
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (!properties.getPause().isZero()) {
+            Thread.sleep(properties.getPause().toMillis());
+        }
+    }
+
+    private class Task {
+        private final DeletableTable table;
+        private final String selectSql;
+        private final String copySql;
+        private final String deleteSql;
+        private final Counter archived;
+        private final Timer batchTimer;
+
+        Task(DeletableTable table) {
+            this.table = table;
+            String name = table.getTableName();
+            String id = table.getIdColumn();
+            // 按删除时间索引扫描，只锁定本批选中的行，并跳过正在被其他事务修改的行
+            this.selectSql = "select " + id + " from " + name
+                    + " where " + table.getDeletedColumn() + " <> 0 and " + table.getDeletedTimeColumn() + " < :before"
+                    + " order by " + table.getDeletedTimeColumn() + ", " + id + " limit :limit for update skip locked";
+            this.copySql = "insert into " + name + properties.getTableSuffix() + " select * from " + name + " where " + id + " in (:ids)";
+            this.deleteSql = "delete from " + name + " where " + id + " in (:ids)";
+            this.archived = Counter.builder("softdelete.archived").tag("table", name).register(meterRegistry);
+            this.batchTimer = Timer.builder("softdelete.archive.batch").tag("table", name).register(meterRegistry);
+        }
+
+        void run() throws InterruptedException {
+            Timestamp before = Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention()));
+            long total = 0;
+            for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+                if (i > 0) {
+                    pause();
+                }
+                Integer count = batchTimer.record(() -> transactionTemplate.execute(status -> archiveBatch(before)));
+                if (count == null || count == 0) {
+                    break;
+                }
+                total += count;
+                archived.increment(count);
+                if (count < properties.getBatchSize()) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Archived {} soft-deleted rows of '{}'", total, table.getTableName());
+            }
+        }
+
+        private int archiveBatch(Timestamp before) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("before", before)
+                    .addValue("limit", properties.getBatchSize());
+            List<Object> ids = jdbcTemplate.queryForList(selectSql, params, Object.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            MapSqlParameterSource idParams = new MapSqlParameterSource("ids", ids);
+            int copied = jdbcTemplate.update(copySql, idParams);
+            int deleted = jdbcTemplate.update(deleteSql, idParams);
+            if (copied != deleted) {
+                throw new IllegalStateException("Copied " + copied + " rows but deleted " + deleted + " rows from '" + table.getTableName() + "'");
+            }
+            return deleted;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.leego.example.bloom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 计数布隆过滤器，每个位置为 4 位计数器，支持删除。
+ * <p>
+ * {@link #mightContain(String)} 返回 <code>false</code> 时元素一定不存在，返回 <code>true</code> 时元素可能存在。
+ * 计数器达到上限（15）后不再增减，只会增加误判，不会产生漏判。线程安全。
+ *
+ * @author Leego Yih
+ */
+public class CountingBloomFilter {
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+    private final AtomicLongArray words;
+    private final int size;
+    private final int hashes;
+
+    /**
+     * @param expectedInsertions the expected number of elements.
+     * @param fpp                the desired false positive probability.
+     */
+    public CountingBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        if (m > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many expected insertions: " + expectedInsertions);
+        }
+        this.size = (int) Math.max(COUNTERS_PER_WORD, m);
+        this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        this.words = new AtomicLongArray((size + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    }
+
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            if (get(index(h1 + i * h2)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(String element) {
+        update(element, 1);
+    }
+
+    public void remove(String element) {
+        update(element, -1);
+    }
+
+    /**
+     * Returns the memory used by the counters in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Returns the estimated false positive probability based on the ratio of non-zero counters.
+     */
+    public double getExpectedFpp() {
+        long nonZero = 0;
+        for (int i = 0; i < size; i++) {
+            if (get(i) != 0) {
+                nonZero++;
+            }
+        }
+        return Math.pow((double) nonZero / size, hashes);
+    }
+
+    private void update(String element, int delta) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int index = index(h1 + i * h2);
+            int word = index / COUNTERS_PER_WORD;
+            int shift = (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+            while (true) {
+                long value = words.get(word);
+                long count = (value >>> shift) & MAX_COUNT;
+                // 计数器饱和后保持不变；计数为 0 时不再递减（删除了未添加的元素）
+                if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+                    break;
+                }
+                long updated = value + ((long) delta << shift);
+                if (words.compareAndSet(word, value, updated)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private long get(int index) {
+        return (words.get(index / COUNTERS_PER_WORD) >>> ((index % COUNTERS_PER_WORD) * COUNTER_BITS)) & MAX_COUNT;
+    }
+
+    private int index(int combined) {
+        return (combined & Integer.MAX_VALUE) % size;
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer.
+     */
+    private static long hash(String element) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : element.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
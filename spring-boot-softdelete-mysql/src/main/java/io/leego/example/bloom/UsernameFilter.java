@@ -0,0 +1,195 @@
+package io.leego.example.bloom;
+
+import io.leego.example.config.SoftDeleteProperties;
+import io.leego.example.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 未删除用户名的计数布隆过滤器，过滤器判定不存在时无需查询数据库，创建用户时据此跳过用户名是否已存在的查询。
+ * <p>
+ * 启动时流式读取所有未删除的用户名，之后在创建用户时（写入前）添加、在删除用户后（事务提交后）移除，
+ * 创建失败时在事务回滚后移除，因此过滤器只会多判不会漏判。批量删除等未经过滤器的操作只会增加误判，
+ * 由定期重建（<code>softdelete.username-filter.rebuild-interval</code>）消除。
+ * <p>
+ * 用户名按数据库的排序规则（<code>utf8mb4_0900_ai_ci</code>，不区分大小写与重音）归一化后再放入过滤器。
+ * <ul>
+ * <li><code>username.filter.lookups</code>：查询次数，<code>result</code> 为 <code>negative</code>（跳过数据库）、
+ * <code>false-positive</code> 或 <code>positive</code></li>
+ * <li><code>username.filter.memory</code>：计数器占用的内存（字节）</li>
+ * <li><code>username.filter.expected-fpp</code>：根据非零计数器比例估算的误判率</li>
+ * </ul>
+ *
+ * @author Leego Yih
+ */
+@Component
+public class UsernameFilter implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SoftDeleteProperties.UsernameFilter properties;
+    private final Counter negatives;
+    private final Counter falsePositives;
+    private final Counter positives;
+    /** 尚未完成的事务中添加的用户名，重建时补入新的过滤器，因为流式读取可能看不到这些事务的写入 */
+    private final Map<Object, String> pending = new ConcurrentHashMap<>();
+    private volatile CountingBloomFilter current;
+    private volatile CountingBloomFilter building;
+
+    public UsernameFilter(UserRepository userRepository, TransactionTemplate transactionTemplate,
+                          SoftDeleteProperties properties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties.getUsernameFilter();
+        this.negatives = Counter.builder("username.filter.lookups").tag("result", "negative").register(meterRegistry);
+        this.falsePositives = Counter.builder("username.filter.lookups").tag("result", "false-positive").register(meterRegistry);
+        this.positives = Counter.builder("username.filter.lookups").tag("result", "positive").register(meterRegistry);
+        Gauge.builder("username.filter.memory", this, o -> o.current == null ? 0 : o.current.getMemoryBytes()).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("username.filter.expected-fpp", this, o -> o.current == null ? 1 : o.current.getExpectedFpp()).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${softdelete.username-filter.rebuild-interval:PT6H}", fixedDelayString = "${softdelete.username-filter.rebuild-interval:PT6H}")
+    public void scheduledRebuild() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the table. Usernames added meanwhile are written to both filters,
+     * removals are only applied to the current one, so the new filter never misses a username.
+     */
+    public synchronized void rebuild() {
+        CountingBloomFilter next = new CountingBloomFilter(properties.getExpectedInsertions(), properties.getFpp());
+        building = next;
+        for (String key : pending.values()) {
+            next.add(key);
+        }
+        AtomicLong count = new AtomicLong();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    usernames.forEach(username -> {
+                        next.add(normalize(username));
+                        count.incrementAndGet();
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            building = null;
+            logger.error("Failed to build username filter", e);
+            return;
+        }
+        current = next;
+        building = null;
+        logger.info("Username filter built with {} usernames, {} bytes", count.get(), next.getMemoryBytes());
+    }
+
+    /**
+     * Returns <code>true</code> if the filter has been built, i.e. a negative answer of {@link #exists(String)} skips the database.
+     */
+    public boolean isAvailable() {
+        return current != null;
+    }
+
+    /**
+     * Returns <code>true</code> if an undeleted user has the given username, querying the database only if the filter says it might.
+     */
+    public boolean exists(String username) {
+        CountingBloomFilter filter = current;
+        if (filter != null && !filter.mightContain(normalize(username))) {
+            negatives.increment();
+            return false;
+        }
+        boolean exists = userRepository.existsByUsername(username);
+        if (filter != null) {
+            (exists ? positives : falsePositives).increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Adds the username before it is written in the current transaction,
+     * and removes it again if the transaction rolls back.
+     */
+    public void add(String username) {
+        String key = normalize(username);
+        Object token = new Object();
+        // 先登记再添加，与重建时先切换再读取登记的顺序相反，保证新的过滤器不会遗漏
+        pending.put(token, key);
+        apply(key, true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                pending.remove(token);
+                if (status != STATUS_COMMITTED) {
+                    apply(key, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the username after the current transaction commits.
+     */
+    public void removeAfterCommit(String username) {
+        String key = normalize(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(key, false);
+                }
+            });
+        } else {
+            apply(key, false);
+        }
+    }
+
+    private void apply(String key, boolean add) {
+        CountingBloomFilter filter = current;
+        if (add) {
+            CountingBloomFilter next = building;
+            if (next != null) {
+                next.add(key);
+            }
+            if (filter != null && filter != next) {
+                filter.add(key);
+            }
+        } else if (filter != null) {
+            filter.remove(key);
+        }
+    }
+
+    /**
+     * 去除重音并转为小写，使数据库视为相同的用户名得到相同的键。
+     */
+    static String normalize(String username) {
+        String decomposed = Normalizer.normalize(username, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+    }
+}
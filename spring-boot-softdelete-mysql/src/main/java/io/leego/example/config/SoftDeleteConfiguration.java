@@ -1,12 +1,23 @@
 package io.leego.example.config;
 
+import io.leego.example.repository.SoftDeleteJpaRepository;
+import io.leego.example.repository.SoftDeleteJpaRepositoryFactoryBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author Leego Yih
  */
 @Configuration
 @EnableJpaAuditing
+@EnableJpaRepositories(
+        value = "io.leego.example.repository",
+        repositoryBaseClass = SoftDeleteJpaRepository.class,
+        repositoryFactoryBeanClass = SoftDeleteJpaRepositoryFactoryBean.class)
+@EnableScheduling
+@EnableConfigurationProperties(SoftDeleteProperties.class)
 public class SoftDeleteConfiguration {
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package io.leego.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Leego Yih
+ */
+@Data
+@ConfigurationProperties("softdelete")
+public class SoftDeleteProperties {
+    private Bulk bulk = new Bulk();
+    private Archive archive = new Archive();
+    private UsernameFilter usernameFilter = new UsernameFilter();
+    private Metrics metrics = new Metrics();
+
+    @Data
+    public static class Bulk {
+        /** 批量删除时每个事务删除的行数 */
+        private int chunkSize = 1000;
+        /** 批次之间的停顿 */
+        private Duration pause = Duration.ZERO;
+    }
+
+    @Data
+    public static class Archive {
+        /** 是否归档已删除的数据 */
+        private boolean enabled = false;
+        /** 删除多久后归档 */
+        private Duration retention = Duration.ofDays(30);
+        /** 归档表名的后缀 */
+        private String tableSuffix = "_archive";
+        /** 每个事务归档的行数 */
+        private int batchSize = 500;
+        /** 批次之间的停顿 */
+        private Duration pause = Duration.ofMillis(200);
+        /** 每次执行最多归档的批次数 */
+        private int maxBatchesPerRun = 100;
+        /** 执行间隔，需使用 ISO-8601 格式（如 PT10M） */
+        private Duration interval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class UsernameFilter {
+        /** 是否使用布隆过滤器判断用户名是否存在 */
+        private boolean enabled = true;
+        /** 预计的用户数，超过后误判率上升 */
+        private long expectedInsertions = 1000000;
+        /** 期望的误判率 */
+        private double fpp = 0.01;
+        /** 重建间隔，需使用 ISO-8601 格式（如 PT6H） */
+        private Duration rebuildInterval = Duration.ofHours(6);
+    }
+
+    @Data
+    public static class Metrics {
+        /** 是否采样各表已删除数据的占比 */
+        private boolean enabled = false;
+        /** 每次采样的随机起点数 */
+        private int probes = 10;
+        /** 每个起点按主键顺序读取的行数 */
+        private int probeSize = 100;
+        /** 统计删除速率的时间窗口 */
+        private Duration rateWindow = Duration.ofHours(1);
+        /** 采样间隔，需使用 ISO-8601 格式（如 PT5M） */
+        private Duration interval = Duration.ofMinutes(5);
+    }
+}
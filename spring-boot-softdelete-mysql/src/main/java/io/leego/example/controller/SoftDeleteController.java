@@ -1,10 +1,13 @@
 package io.leego.example.controller;
 
+import io.leego.example.bloom.UsernameFilter;
 import io.leego.example.entity.User;
 import io.leego.example.pojo.dto.UserCreateDTO;
 import io.leego.example.pojo.dto.UserUpdateDTO;
 import io.leego.example.pojo.vo.UserVO;
 import io.leego.example.repository.UserRepository;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,55 +16,99 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+
 /**
  * @author Leego Yih
  */
 @RestController
 public class SoftDeleteController {
     private final UserRepository userRepository;
+    private final UsernameFilter usernameFilter;
 
-    public SoftDeleteController(UserRepository userRepository) {
+    public SoftDeleteController(UserRepository userRepository, UsernameFilter usernameFilter) {
         this.userRepository = userRepository;
+        this.usernameFilter = usernameFilter;
     }
 
     @GetMapping("users/{id}")
     public UserVO getUser(@PathVariable Long id) {
-        return userRepository.findById(id).map(this::toVO).orElse(null);
+        return userRepository.findVOById(id).orElse(null);
+    }
+
+    /** 检查用户名是否已被使用，布隆过滤器判定不存在时无需查询数据库。 */
+    @GetMapping("users/exists")
+    public boolean existsUser(@RequestParam String username) {
+        return usernameFilter.exists(username);
     }
 
     @Transactional
     @PostMapping("users")
     public UserVO createUser(@Validated @RequestBody UserCreateDTO dto) {
-        if (userRepository.existsByUsername(dto.getUsername())) {
+        // 过滤器判定不存在时直接写入，可能存在时先查询以免写入冲突，并发创建相同用户名仍由唯一索引拦截
+        if (usernameFilter.isAvailable() && usernameFilter.exists(dto.getUsername())) {
             throw new RuntimeException("用户已存在");
         }
         User user = new User(dto.getUsername(), dto.getPassword());
-        userRepository.save(user);
+        usernameFilter.add(user.getUsername());
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateUsername(e)) {
+                throw new RuntimeException("用户已存在");
+            }
+            throw e;
+        }
         return toVO(user);
     }
 
     @Transactional
     @PutMapping("users")
     public UserVO updateUser(@Validated @RequestBody UserUpdateDTO dto) {
-        User user = userRepository.findById(dto.getId()).orElse(null);
-        if (user == null) {
+        int updated = userRepository.updatePasswordById(dto.getId(), dto.getPassword(), LocalDateTime.now());
+        if (updated == 0) {
             throw new RuntimeException("用户不存在");
         }
-        user.setPassword(dto.getPassword());
-        userRepository.save(user);
-        return toVO(user);
+        return userRepository.findVOById(dto.getId()).orElseThrow(() -> new RuntimeException("用户不存在"));
     }
 
     @Transactional
     @DeleteMapping("users/{id}")
     public int deleteUser(@PathVariable Long id) {
         //return userRepository.softdeleteById(id);
+        userRepository.findUsernameById(id).ifPresent(usernameFilter::removeAfterCommit);
         userRepository.deleteById(id);
         return 1;
     }
 
+    @Transactional
+    @PutMapping("users/{id}/restore")
+    public int restoreUser(@PathVariable Long id) {
+        int restored;
+        try {
+            restored = userRepository.restoreById(id);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateUsername(e)) {
+                throw new RuntimeException("用户已存在");
+            }
+            throw e;
+        }
+        // 提交前添加，其他事务看到恢复的用户时过滤器中已有该用户名
+        if (restored > 0) {
+            userRepository.findAnyUsernameById(id).ifPresent(usernameFilter::add);
+        }
+        return restored;
+    }
+
+    /** 依赖唯一索引<code>uk_user_username</code>判断用户名是否重复，无需在写入前查询。 */
+    private boolean isDuplicateUsername(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains("uk_user_username");
+    }
+
     private UserVO toVO(User user) {
         return new UserVO(
                 user.getId(),
@@ -2,6 +2,7 @@ package io.leego.example.entity;
 
 import lombok.Data;
 import lombok.experimental.FieldNameConstants;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.domain.Persistable;
@@ -10,7 +11,6 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.PostLoad;
@@ -27,7 +27,8 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity<ID extends Serializable> implements Persistable<ID> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "id")
+    @GenericGenerator(name = "id", strategy = "io.leego.example.id.ConfigurableIdGenerator")
     protected ID id;
     @CreatedDate
     @Column(nullable = false, updatable = false)
@@ -0,0 +1,80 @@
+package io.leego.example.id;
+
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * 按 <code>hibernate.id.generator</code> 选择主键生成策略。
+ * <ul>
+ * <li><code>snowflake</code>（默认）：{@link SnowflakeIdGenerator}，不访问数据库，主键按时间递增。</li>
+ * <li><code>pooled</code>：{@link TableGenerator}，每个表在 <code>id_generator</code> 表中占一行，
+ * 每次取一段（<code>hibernate.id.increment_size</code>，默认 100）在内存中分配，主键连续递增。</li>
+ * </ul>
+ * 两种策略都在写入前确定主键，Hibernate 可以批量执行 <code>INSERT</code>（<code>hibernate.jdbc.batch_size</code>），
+ * 而 <code>IDENTITY</code> 需要逐条写入以取回自增主键。
+ *
+ * @author Leego Yih
+ */
+public class ConfigurableIdGenerator implements IdentifierGenerator, Configurable {
+    public static final String GENERATOR = "hibernate.id.generator";
+    public static final String INCREMENT_SIZE = "hibernate.id.increment_size";
+    public static final String SNOWFLAKE = "snowflake";
+    public static final String POOLED = "pooled";
+    public static final String TABLE = "id_generator";
+    private IdentifierGenerator delegate;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        ConfigurationService configurationService = serviceRegistry.getService(ConfigurationService.class);
+        String generator = configurationService.getSetting(GENERATOR, StandardConverters.STRING, SNOWFLAKE);
+        if (SNOWFLAKE.equalsIgnoreCase(generator)) {
+            delegate = new SnowflakeIdGenerator();
+            delegate.configure(type, params, serviceRegistry);
+        } else if (POOLED.equalsIgnoreCase(generator)) {
+            int incrementSize = ConfigurationHelper.getInt(INCREMENT_SIZE, configurationService.getSettings(), 100);
+            Properties tableParams = new Properties();
+            tableParams.putAll(params);
+            tableParams.setProperty(TableGenerator.TABLE_PARAM, TABLE);
+            tableParams.setProperty(TableGenerator.CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+            tableParams.setProperty(TableGenerator.INCREMENT_PARAM, String.valueOf(incrementSize));
+            tableParams.setProperty(TableGenerator.OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+            delegate = new TableGenerator();
+            delegate.configure(type, tableParams, serviceRegistry);
+        } else {
+            throw new IllegalArgumentException("Unknown id generator '" + generator + "', expected '" + SNOWFLAKE + "' or '" + POOLED + "'");
+        }
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        delegate.registerExportables(database);
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        delegate.initialize(context);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return delegate.generate(session, object);
+    }
+
+    @Override
+    public boolean supportsJdbcBatchInserts() {
+        return delegate.supportsJdbcBatchInserts();
+    }
+}
@@ -0,0 +1,86 @@
+package io.leego.example.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * 类 Snowflake 的主键生成器，生成的主键全局唯一且按时间递增。
+ * <pre>
+ * | 1 位符号位 | 41 位毫秒时间戳 | 10 位节点 | 12 位序列号 |
+ * </pre>
+ * 节点编号通过 <code>hibernate.id.worker_id</code> 配置，部署多个节点时必须互不相同。
+ * 时钟回拨不超过 5 毫秒时沿用上次的时间戳，超过时立即失败，不在持有锁时等待时钟追上。
+ *
+ * @author Leego Yih
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator, Configurable {
+    public static final String WORKER_ID = "hibernate.id.worker_id";
+    private static final long EPOCH = 1640995200000L;
+    private static final long MAX_BACKWARD_MILLIS = 5L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WORKER_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = WORKER_SHIFT + WORKER_BITS;
+    private static volatile long workerId;
+    private static long lastTimestamp = -1L;
+    private static long sequence;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        setWorkerId(ConfigurationHelper.getInt(WORKER_ID, serviceRegistry.getService(ConfigurationService.class).getSettings(), 0));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return nextId();
+    }
+
+    public static void setWorkerId(long id) {
+        if (id < 0 || id > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID);
+        }
+        workerId = id;
+    }
+
+    public static synchronized long nextId() {
+        long timestamp = System.currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            if (lastTimestamp - timestamp > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - timestamp) + " ms, refusing to generate id");
+            }
+            // 小幅回拨时沿用上次的时间戳，依靠序列号保证唯一
+            timestamp = lastTimestamp;
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = waitUntilNextMillis(lastTimestamp);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_SHIFT)
+                | sequence;
+    }
+
+    private static long waitUntilNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            Thread.yield();
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
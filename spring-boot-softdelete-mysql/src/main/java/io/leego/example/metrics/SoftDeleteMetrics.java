@@ -0,0 +1,229 @@
+package io.leego.example.metrics;
+
+import io.leego.example.archive.DeletableTable;
+import io.leego.example.config.SoftDeleteProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 估算各 {@link io.leego.example.entity.DeletableEntity} 表中已删除数据的规模，用于容量规划。
+ * <p>
+ * 为避免全表 <code>count(*)</code>，总行数与表大小取自 <code>information_schema.tables</code> 的统计值，
+ * 已删除数据的占比、删除时间的分布则从 <code>probes</code> 个随机主键起点各按主键顺序读取 <code>probe-size</code> 行估算。
+ * 起点在主键区间内均匀分布，而 Snowflake 主键在区间内并不均匀（写入稀疏的时段主键间隔大），
+ * 因此每个起点读取的行按其覆盖的主键跨度的倒数加权，即按该处的行密度加权，使估算接近按行均匀采样。
+ * <ul>
+ * <li><code>softdelete.rows</code>：未删除（<code>state=live</code>）与已删除（<code>state=deleted</code>）的行数</li>
+ * <li><code>softdelete.deleted.ratio</code>：已删除数据的占比</li>
+ * <li><code>softdelete.deleted.bytes</code>：已删除数据占用的数据与索引空间</li>
+ * <li><code>softdelete.table.bytes</code>：表的数据与索引空间</li>
+ * <li><code>softdelete.deletion.rate</code>：最近 <code>rate-window</code> 内每秒删除的行数</li>
+ * <li><code>softdelete.deleted.age</code>：已删除数据距删除时间的分位数</li>
+ * </ul>
+ *
+ * @author Leego Yih
+ */
+@Component
+@ConditionalOnProperty(prefix = "softdelete.metrics", name = "enabled", havingValue = "true")
+public class SoftDeleteMetrics implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeleteMetrics.class);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final String STATS_SQL = "select table_rows, data_length + index_length as bytes from information_schema.tables"
+            + " where table_schema = database() and table_name = :table";
+    private final EntityManagerFactory entityManagerFactory;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SoftDeleteProperties.Metrics properties;
+    private final MeterRegistry meterRegistry;
+    private final List<Sampler> samplers = new ArrayList<>();
+
+    public SoftDeleteMetrics(EntityManagerFactory entityManagerFactory, NamedParameterJdbcTemplate jdbcTemplate,
+                             SoftDeleteProperties properties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties.getMetrics();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (DeletableTable table : DeletableTable.resolve(entityManagerFactory)) {
+            samplers.add(new Sampler(table));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${softdelete.metrics.interval:PT5M}")
+    public void sample() {
+        for (Sampler sampler : samplers) {
+            try {
+                sampler.run();
+            } catch (Exception e) {
+                logger.warn("Failed to sample soft-deleted rows of '{}': {}", sampler.table.getTableName(), e.getMessage());
+            }
+        }
+    }
+
+    private class Sampler {
+        private final DeletableTable table;
+        private final String rangeSql;
+        private final String probeSql;
+        private final double[] ages = new double[QUANTILES.length];
+        private volatile double rows = Double.NaN;
+        private volatile double bytes = Double.NaN;
+        private volatile double ratio = Double.NaN;
+        private volatile double rate = Double.NaN;
+
+        Sampler(DeletableTable table) {
+            this.table = table;
+            String name = table.getTableName();
+            String id = table.getIdColumn();
+            this.rangeSql = "select min(" + id + ") as min_id, max(" + id + ") as max_id from " + name;
+            this.probeSql = "select " + id + ", " + table.getDeletedColumn() + ", " + table.getDeletedTimeColumn() + " from " + name
+                    + " where " + id + " >= :start order by " + id + " limit :limit";
+            Arrays.fill(ages, Double.NaN);
+            Gauge.builder("softdelete.rows", this, o -> o.rows * (1 - o.ratio)).tag("table", name).tag("state", "live").register(meterRegistry);
+            Gauge.builder("softdelete.rows", this, o -> o.rows * o.ratio).tag("table", name).tag("state", "deleted").register(meterRegistry);
+            Gauge.builder("softdelete.deleted.ratio", this, o -> o.ratio).tag("table", name).register(meterRegistry);
+            Gauge.builder("softdelete.deleted.bytes", this, o -> o.bytes * o.ratio).tag("table", name).baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("softdelete.table.bytes", this, o -> o.bytes).tag("table", name).baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("softdelete.deletion.rate", this, o -> o.rate).tag("table", name).baseUnit("rows/s").register(meterRegistry);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                int index = i;
+                Gauge.builder("softdelete.deleted.age", this, o -> o.ages[index])
+                        .tag("table", name).tag("quantile", String.valueOf(QUANTILES[i])).baseUnit("seconds").register(meterRegistry);
+            }
+        }
+
+        void run() {
+            Map<String, Object> stats = jdbcTemplate.queryForMap(STATS_SQL, new MapSqlParameterSource("table", table.getTableName()));
+            Map<String, Object> range = jdbcTemplate.queryForMap(rangeSql, new MapSqlParameterSource());
+            long now = System.currentTimeMillis();
+            long recentSince = now - properties.getRateWindow().toMillis();
+            double sampled = 0;
+            double deleted = 0;
+            double recent = 0;
+            List<double[]> deletedAges = new ArrayList<>();
+            for (Object start : getStarts(range.get("min_id"), range.get("max_id"))) {
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("start", start)
+                        .addValue("limit", properties.getProbeSize());
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(probeSql, params);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                double weight = getWeight(start, rows.get(rows.size() - 1).get(table.getIdColumn()));
+                for (Map<String, Object> row : rows) {
+                    sampled += weight;
+                    Object deletedValue = row.get(table.getDeletedColumn());
+                    if (deletedValue == null || ((Number) deletedValue).longValue() == 0) {
+                        continue;
+                    }
+                    deleted += weight;
+                    long time = toMillis(row.get(table.getDeletedTimeColumn()));
+                    if (time > 0) {
+                        deletedAges.add(new double[]{Math.max(0, now - time), weight});
+                        if (time >= recentSince) {
+                            recent += weight;
+                        }
+                    }
+                }
+            }
+            double rows = toDouble(stats.get("table_rows"));
+            this.rows = rows;
+            this.bytes = toDouble(stats.get("bytes"));
+            if (sampled == 0) {
+                this.ratio = 0;
+                this.rate = 0;
+                Arrays.fill(ages, Double.NaN);
+                return;
+            }
+            this.ratio = deleted / sampled;
+            this.rate = rows * recent / sampled / Math.max(1, properties.getRateWindow().getSeconds());
+            deletedAges.sort(Comparator.comparingDouble(o -> o[0]));
+            double total = 0;
+            for (double[] age : deletedAges) {
+                total += age[1];
+            }
+            for (int i = 0; i < QUANTILES.length; i++) {
+                ages[i] = getQuantile(deletedAges, QUANTILES[i] * total) / 1000.0;
+            }
+        }
+
+        /**
+         * Returns the weight of the rows read from the given start, i.e. the inverse of the primary key span they cover,
+         * or <code>1</code> if the primary key is not numeric.
+         */
+        private double getWeight(Object start, Object last) {
+            if (!(start instanceof Number) || !(last instanceof Number)) {
+                return 1;
+            }
+            return 1.0 / Math.max(1, ((Number) last).longValue() - ((Number) start).longValue() + 1);
+        }
+
+        /**
+         * Returns the first age whose cumulative weight reaches the target, the ages must be sorted.
+         */
+        private double getQuantile(List<double[]> ages, double target) {
+            double cumulative = 0;
+            for (double[] age : ages) {
+                cumulative += age[1];
+                if (cumulative >= target) {
+                    return age[0];
+                }
+            }
+            return ages.isEmpty() ? Double.NaN : ages.get(ages.size() - 1)[0];
+        }
+
+        /**
+         * Returns random primary keys to start the probes from, or the minimum one if the primary key is not numeric.
+         */
+        private List<Object> getStarts(Object min, Object max) {
+            if (min == null || max == null) {
+                return Collections.emptyList();
+            }
+            if (!(min instanceof Number) || !(max instanceof Number)) {
+                return Collections.singletonList(min);
+            }
+            long lower = ((Number) min).longValue();
+            long upper = ((Number) max).longValue();
+            List<Object> starts = new ArrayList<>(properties.getProbes());
+            for (int i = 0; i < properties.getProbes(); i++) {
+                starts.add(lower >= upper ? lower : ThreadLocalRandom.current().nextLong(lower, upper + 1));
+            }
+            return starts;
+        }
+
+        /** Connector/J 8.0.23 之后 <code>datetime</code> 映射为 {@link LocalDateTime} */
+        private long toMillis(Object value) {
+            if (value instanceof Timestamp) {
+                return ((Timestamp) value).getTime();
+            }
+            if (value instanceof LocalDateTime) {
+                return Timestamp.valueOf((LocalDateTime) value).getTime();
+            }
+            return -1;
+        }
+
+        private double toDouble(Object value) {
+            return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.leego.example.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 批量逻辑删除的选项：每批的行数、批次之间的停顿及进度回调。
+ * <p>
+ * 默认选项由 <code>softdelete.bulk.*</code> 配置，见 {@link SoftDeleteJpaRepositoryFactoryBean}。
+ *
+ * @author Leego Yih
+ */
+public final class BulkDeleteOptions {
+    private static final Logger logger = LoggerFactory.getLogger(BulkDeleteOptions.class);
+    private static final Consumer<BulkDeleteProgress<?>> LOGGING = progress ->
+            logger.info("Soft deleted {} rows in {} chunks, last id: {}", progress.getDeleted(), progress.getChunks(), progress.getLastId());
+    private static final BulkDeleteOptions DEFAULTS = new BulkDeleteOptions(1000, Duration.ZERO, LOGGING);
+    private final int chunkSize;
+    private final Duration pause;
+    private final Consumer<BulkDeleteProgress<?>> listener;
+
+    private BulkDeleteOptions(int chunkSize, Duration pause, Consumer<BulkDeleteProgress<?>> listener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.listener = listener;
+    }
+
+    public static BulkDeleteOptions of(int chunkSize, Duration pause) {
+        return new BulkDeleteOptions(chunkSize, pause, LOGGING);
+    }
+
+    /**
+     * Returns the options used when <code>softdelete.bulk.*</code> is not configured.
+     */
+    public static BulkDeleteOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns a copy of the options that reports progress to the given listener after each chunk.
+     */
+    public BulkDeleteOptions withListener(Consumer<BulkDeleteProgress<?>> listener) {
+        return new BulkDeleteOptions(chunkSize, pause, listener);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Duration getPause() {
+        return pause;
+    }
+
+    void onChunk(BulkDeleteProgress<?> progress) {
+        listener.accept(progress);
+    }
+
+    void pause() {
+        if (pause.isZero() || pause.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk soft delete interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.leego.example.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 批量逻辑删除的进度。中断后可将 {@link #getLastId()} 传给
+ * {@link DeletableRepository#softdeleteAllAfter(java.io.Serializable, BulkDeleteOptions)} 继续执行。
+ *
+ * @author Leego Yih
+ */
+@Getter
+@ToString
+public class BulkDeleteProgress<ID> {
+    /** 已完成的批次数 */
+    private int chunks;
+    /** 已删除的行数 */
+    private long deleted;
+    /** 已处理的最大主键 */
+    private ID lastId;
+
+    void onChunk(int deleted, ID lastId) {
+        this.chunks++;
+        this.deleted += deleted;
+        this.lastId = lastId;
+    }
+}
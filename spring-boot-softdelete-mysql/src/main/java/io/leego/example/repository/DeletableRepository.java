@@ -1,11 +1,11 @@
 package io.leego.example.repository;
 
 import io.leego.example.entity.DeletableEntity;
-import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.NoRepositoryBean;
-import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 import java.io.Serializable;
@@ -14,50 +14,106 @@ import java.util.Collection;
 import java.util.List;
 
 /**
+ * 批量删除（{@link #deleteAll()}、{@link #deleteAll(Iterable)}、{@link #deleteAllById(Iterable)}）按主键顺序分批执行，
+ * 避免生成过长的 <code>IN</code> 列表。存在事务时所有批次都在调用方的事务中执行，与其一同提交或回滚；
+ * 不存在事务时每批在独立的事务中提交，避免一次锁定大量的行。
+ * 显式指定 {@link BulkDeleteOptions} 的 {@link #softdeleteAll(BulkDeleteOptions)} 等方法总是每批独立提交。
+ * 已删除的行不会被再次删除，因此中断后重新执行即可继续。
+ * <p>
+ * 软删除语句由 {@link SoftDeleteJpaRepository} 实现，需将其配置为 <code>repositoryBaseClass</code>，
+ * 并将 {@link SoftDeleteJpaRepositoryFactoryBean} 配置为 <code>repositoryFactoryBeanClass</code>。
+ *
  * @author Leego Yih
  */
 @NoRepositoryBean
 public interface DeletableRepository<T extends DeletableEntity<ID>, ID extends Serializable> extends CrudRepository<T, ID> {
 
     @Transactional
-    @Modifying
-    @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where id = :id and deleted = 0")
-    int softdeleteById(@Param("id") ID id);
+    int softdeleteById(ID id);
 
     @Transactional
-    @Modifying
-    @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where id in :ids and deleted = 0")
-    int softdeleteAllById(@Param("ids") Collection<? extends ID> ids);
+    int softdeleteAllById(Collection<? extends ID> ids);
 
-    @Override
+    /**
+     * Restores a soft deleted entity, together with the children deleted along with it.
+     */
     @Transactional
-    @Modifying
-    @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where id = :id and deleted = 0")
-    void deleteById(@Param("id") ID id);
+    int restoreById(ID id);
 
-    @Override
+    /**
+     * Restores soft deleted entities, together with the children deleted along with them.
+     * The number of statements depends only on the cascaded tables, not on the number of entities.
+     */
     @Transactional
-    @Modifying
-    @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where id in :ids and deleted = 0")
-    void deleteAllById(@Param("ids") Iterable<? extends ID> ids);
+    int restoreAllById(Collection<? extends ID> ids);
+
+    /**
+     * Soft deletes a chunk of entities in a new transaction.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int softdeleteChunk(Collection<? extends ID> ids);
+
+    /**
+     * Returns the options configured by <code>softdelete.bulk.*</code>.
+     */
+    BulkDeleteOptions getBulkDeleteOptions();
+
+    List<ID> findUndeletedIds(Pageable pageable);
+
+    List<ID> findUndeletedIdsAfter(ID afterId, Pageable pageable);
 
     @Override
     @Transactional
-    @Modifying
-    @Query("update #{#entityName} set deleted = id, deletedTime = :#{T(java.time.LocalDateTime).now()} where deleted = 0")
-    void deleteAll();
+    void deleteById(ID id);
 
     @Override
-    @Transactional
-    default void delete(@Param("entity") T entity) {
-        if (entity.getId() != null) {
-            this.deleteById(entity.getId());
+    @Transactional(Transactional.TxType.SUPPORTS)
+    default void deleteAllById(Iterable<? extends ID> ids) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            softdeleteAllById(ids, getBulkDeleteOptions());
+            return;
+        }
+        List<ID> list = new ArrayList<>();
+        for (ID id : ids) {
+            if (id != null) {
+                list.add(id);
+            }
+        }
+        int chunkSize = getBulkDeleteOptions().getChunkSize();
+        for (int i = 0; i < list.size(); i += chunkSize) {
+            softdeleteAllById(list.subList(i, Math.min(i + chunkSize, list.size())));
+        }
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    default void deleteAll() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            softdeleteAll(getBulkDeleteOptions());
+            return;
+        }
+        Pageable pageable = PageRequest.of(0, getBulkDeleteOptions().getChunkSize());
+        ID lastId = null;
+        while (true) {
+            List<ID> ids = lastId == null ? findUndeletedIds(pageable) : findUndeletedIdsAfter(lastId, pageable);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            softdeleteAllById(ids);
+            if (ids.size() < pageable.getPageSize()) {
+                break;
+            }
         }
     }
 
     @Override
     @Transactional
-    default void deleteAll(@Param("entities") Iterable<? extends T> entities) {
+    void delete(T entity);
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    default void deleteAll(Iterable<? extends T> entities) {
         List<ID> ids = new ArrayList<>();
         for (T entity : entities) {
             if (entity.getId() != null) {
@@ -67,4 +123,73 @@ public interface DeletableRepository<T extends DeletableEntity<ID>, ID extends S
         this.deleteAllById(ids);
     }
 
+    /**
+     * Soft deletes all entities in primary key order, chunk by chunk.
+     *
+     * @param options the chunk size, the pause between chunks and the progress listener.
+     * @return the number of deleted rows.
+     */
+    default long softdeleteAll(BulkDeleteOptions options) {
+        return softdeleteAllAfter(null, options);
+    }
+
+    /**
+     * Soft deletes all entities whose primary key is greater than the given one, chunk by chunk,
+     * e.g. to resume from the {@link BulkDeleteProgress#getLastId() last id} of a stopped job.
+     *
+     * @param afterId the primary key to start after, or <code>null</code> to start from the beginning.
+     * @param options the chunk size, the pause between chunks and the progress listener.
+     * @return the number of deleted rows.
+     */
+    default long softdeleteAllAfter(ID afterId, BulkDeleteOptions options) {
+        Pageable pageable = PageRequest.of(0, options.getChunkSize());
+        BulkDeleteProgress<ID> progress = new BulkDeleteProgress<>();
+        ID lastId = afterId;
+        while (true) {
+            List<ID> ids = lastId == null ? findUndeletedIds(pageable) : findUndeletedIdsAfter(lastId, pageable);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            progress.onChunk(softdeleteChunk(ids), lastId);
+            options.onChunk(progress);
+            if (ids.size() < options.getChunkSize()) {
+                break;
+            }
+            options.pause();
+        }
+        return progress.getDeleted();
+    }
+
+    /**
+     * Soft deletes the entities with the given primary keys in ascending order, chunk by chunk.
+     *
+     * @param ids     the primary keys.
+     * @param options the chunk size, the pause between chunks and the progress listener.
+     * @return the number of deleted rows.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default long softdeleteAllById(Iterable<? extends ID> ids, BulkDeleteOptions options) {
+        List<ID> sorted = new ArrayList<>();
+        for (ID id : ids) {
+            if (id != null) {
+                sorted.add(id);
+            }
+        }
+        if (!sorted.isEmpty() && sorted.get(0) instanceof Comparable) {
+            sorted.sort((a, b) -> ((Comparable) a).compareTo(b));
+        }
+        BulkDeleteProgress<ID> progress = new BulkDeleteProgress<>();
+        int chunkSize = options.getChunkSize();
+        for (int i = 0; i < sorted.size(); i += chunkSize) {
+            if (i > 0) {
+                options.pause();
+            }
+            List<ID> chunk = sorted.subList(i, Math.min(i + chunkSize, sorted.size()));
+            progress.onChunk(softdeleteChunk(chunk), chunk.get(chunk.size() - 1));
+            options.onChunk(progress);
+        }
+        return progress.getDeleted();
+    }
+
 }
@@ -0,0 +1,166 @@
+package io.leego.example.repository;
+
+import io.leego.example.annotation.SoftDeleteCascade;
+import io.leego.example.archive.DeletableTable;
+import io.leego.example.entity.DeletableEntity;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 由 {@link SoftDeleteCascade} 解析的级联软删除与恢复语句。
+ * <p>
+ * 每个子表对应一条语句，通过 <code>JOIN</code> 从根实体（别名 <code>t0</code>）关联至子表，参数为根实体的主键 <code>:ids</code>
+ * 与删除时间 <code>:now</code>。语句按深度优先、子表在前的顺序执行，使删除或恢复子表时祖先仍保持原来的状态。
+ * <p>
+ * 单独删除的行 <code>deleted</code> 为自身的主键，随根实体删除的子实体 <code>deleted</code> 则记为根实体的主键，
+ * 即根实体删除后的 <code>deleted</code>。恢复时只恢复 <code>deleted</code> 等于根实体当前 <code>deleted</code> 的子实体，
+ * 因此根实体本身随上级删除时，其子实体同样能够恢复。主键跨表重复时（例如 <code>pooled</code> 主键）无法区分
+ * <code>deleted</code> 恰好等于自身主键的子实体，这类子实体按单独删除处理，不会被恢复。
+ *
+ * @author Leego Yih
+ */
+public class SoftDeleteCascades {
+    private static final SoftDeleteCascades NONE = new SoftDeleteCascades(Collections.emptyList(), Collections.emptyList());
+    private final List<String> deleteStatements;
+    private final List<String> restoreStatements;
+
+    private SoftDeleteCascades(List<String> deleteStatements, List<String> restoreStatements) {
+        this.deleteStatements = deleteStatements;
+        this.restoreStatements = restoreStatements;
+    }
+
+    /**
+     * Resolves the cascades of the given entity from its {@link SoftDeleteCascade} associations.
+     *
+     * @param sessionFactory the session factory.
+     * @param entityClass    the root entity class.
+     * @throws IllegalStateException if an annotated association cannot be cascaded.
+     */
+    public static SoftDeleteCascades resolve(SessionFactoryImplementor sessionFactory, Class<?> entityClass) {
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entityClass);
+        if (!DeletableEntity.class.isAssignableFrom(entityClass) || !(persister instanceof AbstractEntityPersister)) {
+            return NONE;
+        }
+        List<DeletableTable> tables = new ArrayList<>();
+        List<String> foreignKeys = new ArrayList<>();
+        tables.add(DeletableTable.of((AbstractEntityPersister) persister));
+        foreignKeys.add(null);
+        List<String> deleteStatements = new ArrayList<>();
+        List<String> restoreStatements = new ArrayList<>();
+        collect(sessionFactory, (AbstractEntityPersister) persister, tables, foreignKeys, deleteStatements, restoreStatements);
+        if (deleteStatements.isEmpty()) {
+            return NONE;
+        }
+        return new SoftDeleteCascades(Collections.unmodifiableList(deleteStatements), Collections.unmodifiableList(restoreStatements));
+    }
+
+    public boolean isEmpty() {
+        return deleteStatements.isEmpty();
+    }
+
+    /**
+     * Returns the statements that soft delete the undeleted children of the roots <code>:ids</code> at <code>:now</code>.
+     */
+    public List<String> getDeleteStatements() {
+        return deleteStatements;
+    }
+
+    /**
+     * Returns the statements that restore the children deleted together with the roots <code>:ids</code>.
+     */
+    public List<String> getRestoreStatements() {
+        return restoreStatements;
+    }
+
+    private static void collect(SessionFactoryImplementor sessionFactory, AbstractEntityPersister persister,
+                                List<DeletableTable> tables, List<String> foreignKeys,
+                                List<String> deleteStatements, List<String> restoreStatements) {
+        for (Class<?> type = persister.getMappedClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!field.isAnnotationPresent(SoftDeleteCascade.class)) {
+                    continue;
+                }
+                String role = persister.getEntityName() + "." + field.getName();
+                CollectionPersister collectionPersister = sessionFactory.getMetamodel().collectionPersister(role);
+                if (!collectionPersister.isOneToMany() || !(collectionPersister instanceof AbstractCollectionPersister)) {
+                    throw new IllegalStateException("@SoftDeleteCascade requires a one-to-many association of DeletableEntity: " + role);
+                }
+                EntityPersister elementPersister = ((AbstractCollectionPersister) collectionPersister).getElementPersister();
+                if (!(elementPersister instanceof AbstractEntityPersister)
+                        || !DeletableEntity.class.isAssignableFrom(elementPersister.getMappedClass())) {
+                    throw new IllegalStateException("@SoftDeleteCascade requires a one-to-many association of DeletableEntity: " + role);
+                }
+                AbstractEntityPersister childPersister = (AbstractEntityPersister) elementPersister;
+                DeletableTable child = DeletableTable.of(childPersister);
+                for (DeletableTable table : tables) {
+                    // MySQL 不允许在 UPDATE 中通过 JOIN 引用被修改的表自身
+                    if (table.getTableName().equals(child.getTableName())) {
+                        throw new IllegalStateException("@SoftDeleteCascade does not support cyclic associations: " + role);
+                    }
+                }
+                tables.add(child);
+                foreignKeys.add(((AbstractCollectionPersister) collectionPersister).getKeyColumnNames()[0]);
+                collect(sessionFactory, childPersister, tables, foreignKeys, deleteStatements, restoreStatements);
+                deleteStatements.add(buildDeleteStatement(tables, foreignKeys));
+                restoreStatements.add(buildRestoreStatement(tables, foreignKeys));
+                tables.remove(tables.size() - 1);
+                foreignKeys.remove(foreignKeys.size() - 1);
+            }
+        }
+    }
+
+    private static String buildDeleteStatement(List<DeletableTable> tables, List<String> foreignKeys) {
+        int leaf = tables.size() - 1;
+        DeletableTable table = tables.get(leaf);
+        StringBuilder sql = new StringBuilder();
+        appendJoins(sql, tables, foreignKeys);
+        sql.append(" set t").append(leaf).append('.').append(table.getDeletedColumn()).append(" = t0.").append(tables.get(0).getIdColumn())
+                .append(", t").append(leaf).append('.').append(table.getDeletedTimeColumn()).append(" = :now")
+                .append(" where t0.").append(tables.get(0).getIdColumn()).append(" in (:ids)");
+        for (int i = 0; i <= leaf; i++) {
+            sql.append(" and t").append(i).append('.').append(tables.get(i).getDeletedColumn()).append(" = 0");
+        }
+        return sql.toString();
+    }
+
+    private static String buildRestoreStatement(List<DeletableTable> tables, List<String> foreignKeys) {
+        int leaf = tables.size() - 1;
+        DeletableTable table = tables.get(leaf);
+        DeletableTable root = tables.get(0);
+        StringBuilder sql = new StringBuilder();
+        appendJoins(sql, tables, foreignKeys);
+        sql.append(" set t").append(leaf).append('.').append(table.getDeletedColumn()).append(" = 0")
+                .append(", t").append(leaf).append('.').append(table.getDeletedTimeColumn()).append(" = null")
+                .append(" where t0.").append(root.getIdColumn()).append(" in (:ids)")
+                .append(" and t0.").append(root.getDeletedColumn()).append(" <> 0");
+        for (int i = 1; i <= leaf; i++) {
+            DeletableTable current = tables.get(i);
+            sql.append(" and t").append(i).append('.').append(current.getDeletedColumn())
+                    .append(" = t0.").append(root.getDeletedColumn())
+                    .append(" and t").append(i).append('.').append(current.getDeletedColumn())
+                    .append(" <> t").append(i).append('.').append(current.getIdColumn());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Appends <code>update leaf tn join parent tn-1 on ... join root t0 on ...</code>.
+     */
+    private static void appendJoins(StringBuilder sql, List<DeletableTable> tables, List<String> foreignKeys) {
+        int leaf = tables.size() - 1;
+        sql.append("update ").append(tables.get(leaf).getTableName()).append(" t").append(leaf);
+        for (int i = leaf - 1; i >= 0; i--) {
+            sql.append(" join ").append(tables.get(i).getTableName()).append(" t").append(i)
+                    .append(" on t").append(i + 1).append('.').append(foreignKeys.get(i + 1))
+                    .append(" = t").append(i).append('.').append(tables.get(i).getIdColumn());
+        }
+    }
+}
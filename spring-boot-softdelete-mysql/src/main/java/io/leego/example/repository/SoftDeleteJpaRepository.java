@@ -0,0 +1,219 @@
+package io.leego.example.repository;
+
+import io.leego.example.archive.DeletableTable;
+import io.leego.example.entity.DeletableEntity;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link DeletableRepository} 的实现，作为所有 Repository 的基类（<code>repositoryBaseClass</code>）。
+ * <p>
+ * 软删除语句在创建 Repository 时按实体拼接一次，调用时只绑定参数，不再对每次调用解析 SpEL 表达式。
+ * 非 {@link DeletableEntity} 的实体仍按 {@link SimpleJpaRepository} 物理删除。
+ * <p>
+ * 实体的关联标注了 {@link io.leego.example.annotation.SoftDeleteCascade} 时，删除与恢复在同一个事务中先级联至各子表，
+ * 每个子表执行一条语句（见 {@link SoftDeleteCascades}）。
+ *
+ * @author Leego Yih
+ */
+@Transactional(readOnly = true)
+public class SoftDeleteJpaRepository<T, ID extends Serializable> extends SimpleJpaRepository<T, ID> {
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+    private final boolean deletable;
+    private final String softdeleteByIdQuery;
+    private final String softdeleteAllByIdQuery;
+    private final String findUndeletedIdsQuery;
+    private final String findUndeletedIdsAfterQuery;
+    private final String restoreAllByIdQuery;
+    private final SoftDeleteCascades cascades;
+    private BulkDeleteOptions bulkDeleteOptions = BulkDeleteOptions.defaults();
+
+    public SoftDeleteJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+        this.deletable = DeletableEntity.class.isAssignableFrom(entityInformation.getJavaType());
+        if (!deletable) {
+            this.softdeleteByIdQuery = null;
+            this.softdeleteAllByIdQuery = null;
+            this.findUndeletedIdsQuery = null;
+            this.findUndeletedIdsAfterQuery = null;
+            this.restoreAllByIdQuery = null;
+            this.cascades = null;
+            return;
+        }
+        String entityName = entityInformation.getEntityName();
+        String id = entityInformation.getRequiredIdAttribute().getName();
+        String deleted = DeletableEntity.Fields.deleted;
+        String update = "update " + entityName + " set " + deleted + " = " + id + ", " + DeletableEntity.Fields.deletedTime + " = :now";
+        String select = "select " + id + " from " + entityName + " where " + deleted + " = 0";
+        this.softdeleteByIdQuery = update + " where " + id + " = :id and " + deleted + " = 0";
+        this.softdeleteAllByIdQuery = update + " where " + id + " in :ids and " + deleted + " = 0";
+        this.findUndeletedIdsQuery = select + " order by " + id;
+        this.findUndeletedIdsAfterQuery = select + " and " + id + " > :afterId order by " + id;
+        // 实体的 @Where 会排除已删除的行，恢复语句直接使用表名与列名
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        DeletableTable table = DeletableTable.of((AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityInformation.getJavaType()));
+        this.restoreAllByIdQuery = "update " + table.getTableName()
+                + " set " + table.getDeletedColumn() + " = 0, " + table.getDeletedTimeColumn() + " = null"
+                + " where " + table.getIdColumn() + " in (:ids) and " + table.getDeletedColumn() + " <> 0";
+        this.cascades = SoftDeleteCascades.resolve(sessionFactory, entityInformation.getJavaType());
+    }
+
+    /**
+     * @see DeletableRepository#softdeleteById(Serializable)
+     */
+    @Transactional
+    public int softdeleteById(ID id) {
+        String query = getQuery(softdeleteByIdQuery);
+        if (!cascades.isEmpty()) {
+            return softdeleteAllById(Collections.singletonList(id));
+        }
+        return entityManager.createQuery(query)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * @see DeletableRepository#softdeleteAllById(Collection)
+     */
+    @Transactional
+    public int softdeleteAllById(Collection<? extends ID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String query = getQuery(softdeleteAllByIdQuery);
+        LocalDateTime now = LocalDateTime.now();
+        for (String statement : cascades.getDeleteStatements()) {
+            entityManager.createNativeQuery(statement)
+                    .setParameter("now", now)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return entityManager.createQuery(query)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * @see DeletableRepository#restoreById(Serializable)
+     */
+    @Transactional
+    public int restoreById(ID id) {
+        return restoreAllById(Collections.singletonList(id));
+    }
+
+    /**
+     * @see DeletableRepository#restoreAllById(Collection)
+     */
+    @Transactional
+    public int restoreAllById(Collection<? extends ID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String query = getQuery(restoreAllByIdQuery);
+        for (String statement : cascades.getRestoreStatements()) {
+            entityManager.createNativeQuery(statement)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return entityManager.createNativeQuery(query)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * @see DeletableRepository#softdeleteChunk(Collection)
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int softdeleteChunk(Collection<? extends ID> ids) {
+        return softdeleteAllById(ids);
+    }
+
+    /**
+     * @see DeletableRepository#getBulkDeleteOptions()
+     */
+    public BulkDeleteOptions getBulkDeleteOptions() {
+        return bulkDeleteOptions;
+    }
+
+    public void setBulkDeleteOptions(BulkDeleteOptions bulkDeleteOptions) {
+        this.bulkDeleteOptions = bulkDeleteOptions;
+    }
+
+    /**
+     * @see DeletableRepository#findUndeletedIds(Pageable)
+     */
+    public List<ID> findUndeletedIds(Pageable pageable) {
+        return page(entityManager.createQuery(getQuery(findUndeletedIdsQuery), getIdType()), pageable).getResultList();
+    }
+
+    /**
+     * @see DeletableRepository#findUndeletedIdsAfter(Serializable, Pageable)
+     */
+    public List<ID> findUndeletedIdsAfter(ID afterId, Pageable pageable) {
+        return page(entityManager.createQuery(getQuery(findUndeletedIdsAfterQuery), getIdType()), pageable)
+                .setParameter("afterId", afterId)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(ID id) {
+        if (deletable) {
+            softdeleteById(id);
+        } else {
+            super.deleteById(id);
+        }
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public void delete(T entity) {
+        if (!deletable) {
+            super.delete(entity);
+            return;
+        }
+        ID id = (ID) entityInformation.getId(entity);
+        if (id != null) {
+            softdeleteById(id);
+        }
+    }
+
+    private String getQuery(String query) {
+        if (!deletable) {
+            throw new UnsupportedOperationException(entityInformation.getJavaType().getName() + " is not a " + DeletableEntity.class.getSimpleName());
+        }
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<ID> getIdType() {
+        return (Class<ID>) entityInformation.getIdType();
+    }
+
+    private static <R> TypedQuery<R> page(TypedQuery<R> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
+}
@@ -0,0 +1,45 @@
+package io.leego.example.repository;
+
+import io.leego.example.config.SoftDeleteProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+
+/**
+ * 创建 Repository 时，将 <code>softdelete.bulk.*</code> 配置的批量删除选项注入 {@link SoftDeleteJpaRepository}。
+ *
+ * @author Leego Yih
+ */
+public class SoftDeleteJpaRepositoryFactoryBean<R extends Repository<T, ID>, T, ID extends Serializable> extends JpaRepositoryFactoryBean<R, T, ID> {
+    private BulkDeleteOptions bulkDeleteOptions = BulkDeleteOptions.defaults();
+
+    public SoftDeleteJpaRepositoryFactoryBean(Class<? extends R> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setSoftDeleteProperties(SoftDeleteProperties properties) {
+        this.bulkDeleteOptions = BulkDeleteOptions.of(properties.getBulk().getChunkSize(), properties.getBulk().getPause());
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        RepositoryFactorySupport factory = super.createRepositoryFactory(entityManager);
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+            Object target;
+            try {
+                target = proxyFactory.getTargetSource().getTarget();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to get the target of " + repositoryInformation.getRepositoryInterface().getName(), e);
+            }
+            if (target instanceof SoftDeleteJpaRepository) {
+                ((SoftDeleteJpaRepository<?, ?>) target).setBulkDeleteOptions(bulkDeleteOptions);
+            }
+        });
+        return factory;
+    }
+}
@@ -1,7 +1,19 @@
 package io.leego.example.repository;
 
 import io.leego.example.entity.User;
+import io.leego.example.pojo.vo.UserVO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * @author Leego Yih
@@ -10,4 +22,26 @@ public interface UserRepository extends JpaRepository<User, Long>, DeletableRepo
 
     boolean existsByUsername(String username);
 
+    /**
+     * 直接将列映射为 {@link UserVO}，不加载实体，也不注册至持久化上下文。
+     */
+    @Query("select new io.leego.example.pojo.vo.UserVO(u.id, u.username, u.password, u.createdTime, u.updatedTime) from User u where u.id = :id")
+    Optional<UserVO> findVOById(@Param("id") Long id);
+
+    @Query("select username from User where id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    /** 包括已删除的用户 */
+    @Query(value = "select username from user where id = :id", nativeQuery = true)
+    Optional<String> findAnyUsernameById(@Param("id") Long id);
+
+    /** 流式读取所有未删除的用户名，需在事务中调用并关闭返回的流。 */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select username from User")
+    Stream<String> streamAllUsernames();
+
+    @Modifying
+    @Query("update User set password = :password, updatedTime = :updatedTime where id = :id and deleted = 0")
+    int updatePasswordById(@Param("id") Long id, @Param("password") String password, @Param("updatedTime") LocalDateTime updatedTime);
+
 }